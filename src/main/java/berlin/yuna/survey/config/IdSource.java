@@ -0,0 +1,41 @@
+package berlin.yuna.survey.config;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Generator for the ids of {@link berlin.yuna.survey.model.ContextExchange}s - see {@link SurveyDefaults#idSource(IdSource)}
+ */
+@FunctionalInterface
+public interface IdSource {
+
+    /**
+     * @return new id
+     */
+    UUID next();
+
+    /**
+     * Time ordered ids in the layout of UUID version 7 (48 bit unix millis, 74 random bits).
+     * The random bits come from {@link ThreadLocalRandom} which never blocks on entropy - the ids are unique but
+     * not meant to be unpredictable.
+     *
+     * @return {@link IdSource}
+     */
+    static IdSource timeOrdered() {
+        return () -> {
+            final ThreadLocalRandom random = ThreadLocalRandom.current();
+            final long msb = (System.currentTimeMillis() << 16) | 0x7000L | (random.nextLong() & 0x0FFFL);
+            final long lsb = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+            return new UUID(msb, lsb);
+        };
+    }
+
+    /**
+     * Random ids of {@link UUID#randomUUID()}
+     *
+     * @return {@link IdSource}
+     */
+    static IdSource random() {
+        return UUID::randomUUID;
+    }
+}
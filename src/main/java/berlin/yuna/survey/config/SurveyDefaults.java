@@ -3,15 +3,96 @@ package berlin.yuna.survey.config;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.MapperFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class SurveyDefaults {
 
     private static final ObjectMapper mapper = init();
+    private static final ObjectReader reader = mapper.readerFor(Object.class);
+    private static volatile TimeSource timeSource = TimeSource.system();
+    private static volatile IdSource idSource = IdSource.timeOrdered();
+    private static final Map<String, Class<?>> snapshotTypes = snapshotTypes(
+            ArrayList.class, LinkedHashSet.class, LinkedHashMap.class, BigDecimal.class, BigInteger.class,
+            Float.class, Short.class, Byte.class, Character.class, UUID.class
+    );
 
     public static ObjectMapper surveyMapper() {
         return mapper;
     }
 
+    /**
+     * @return shared and thread safe reader of {@link SurveyDefaults#surveyMapper()} for answers
+     */
+    public static ObjectReader surveyReader() {
+        return reader;
+    }
+
+    /**
+     * @return clock for all timestamps - {@link TimeSource#system()} on default
+     */
+    public static TimeSource timeSource() {
+        return timeSource;
+    }
+
+    /**
+     * @param source clock for all timestamps - {@link TimeSource#monotonic()} is opt-in, {@code null} restores {@link TimeSource#system()}
+     */
+    public static void timeSource(final TimeSource source) {
+        timeSource = source == null ? TimeSource.system() : source;
+    }
+
+    /**
+     * @return generator for ids - {@link IdSource#timeOrdered()} on default
+     */
+    public static IdSource idSource() {
+        return idSource;
+    }
+
+    /**
+     * @param source generator for ids
+     */
+    public static void idSource(final IdSource source) {
+        idSource = source == null ? IdSource.timeOrdered() : source;
+    }
+
+    /**
+     * Allows snapshots to restore answers of the given type - answers of other types are restored as plain json values
+     * (maps, lists, strings and numbers). Only register types which are safe to create from untrusted json.
+     *
+     * @param type answer type to restore by its class name
+     */
+    public static void snapshotType(final Class<?> type) {
+        if (type == null) {
+            throw new IllegalArgumentException("Missing type, given was null");
+        }
+        snapshotTypes.put(type.getName(), type);
+    }
+
+    /**
+     * @param name class name of an answer
+     * @return registered answer type or {@code null} if the type isn't allowed - see {@link SurveyDefaults#snapshotType(Class)}
+     */
+    public static Class<?> snapshotType(final String name) {
+        return name == null ? null : snapshotTypes.get(name);
+    }
+
+    private static Map<String, Class<?>> snapshotTypes(final Class<?>... types) {
+        final Map<String, Class<?>> result = new ConcurrentHashMap<>();
+        for (Class<?> type : types) {
+            result.put(type.getName(), type);
+        }
+        return result;
+    }
+
     private static ObjectMapper init() {
         final ObjectMapper mapper = new ObjectMapper();
         mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
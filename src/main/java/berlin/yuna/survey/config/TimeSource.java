@@ -0,0 +1,41 @@
+package berlin.yuna.survey.config;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Clock which is used for all timestamps of a {@link berlin.yuna.survey.logic.Survey} - see {@link SurveyDefaults#timeSource(TimeSource)}
+ */
+@FunctionalInterface
+public interface TimeSource {
+
+    /**
+     * @return current time in {@code UTC}
+     */
+    LocalDateTime now();
+
+    /**
+     * Monotonic clock - the wall clock is read once and advanced by {@link System#nanoTime()}.
+     * Timestamps never go backwards, even if the system clock gets adjusted.
+     *
+     * @return {@link TimeSource}
+     */
+    static TimeSource monotonic() {
+        final long baseMillis = System.currentTimeMillis();
+        final long baseNanos = System.nanoTime();
+        return () -> {
+            final long nanos = TimeUnit.MILLISECONDS.toNanos(baseMillis) + (System.nanoTime() - baseNanos);
+            return LocalDateTime.ofEpochSecond(Math.floorDiv(nanos, 1_000_000_000L), (int) Math.floorMod(nanos, 1_000_000_000L), ZoneOffset.UTC);
+        };
+    }
+
+    /**
+     * System clock - follows adjustments of the system clock
+     *
+     * @return {@link TimeSource}
+     */
+    static TimeSource system() {
+        return () -> LocalDateTime.now(ZoneOffset.UTC);
+    }
+}
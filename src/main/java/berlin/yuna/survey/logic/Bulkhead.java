@@ -0,0 +1,162 @@
+package berlin.yuna.survey.logic;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * {@link Executor} with a fixed number of concurrent tasks for slow dependencies of
+ * {@link berlin.yuna.survey.model.AsyncCondition}s. Tasks beyond the limit are rejected immediately instead of being
+ * queued - a rejected {@link berlin.yuna.survey.model.AsyncCondition} uses its fallback, so a slow dependency can't
+ * exhaust the request threads.
+ * A {@link Bulkhead} created by {@link Bulkhead#of(int)} owns its threads and must be closed - see {@link Bulkhead#close()}.
+ */
+@SuppressWarnings({"unused", "UnusedReturnValue"})
+public final class Bulkhead implements Executor, AutoCloseable {
+
+    private final int limit;
+    private final Semaphore permits;
+    private final Executor executor;
+    private final ExecutorService owned;
+
+    /**
+     * Bulkhead with its own pool of {@code limit} daemon threads - close it if it isn't needed anymore
+     *
+     * @param limit max number of concurrent tasks
+     * @return {@link Bulkhead}
+     */
+    public static Bulkhead of(final int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be positive, given was [" + limit + "]");
+        }
+        final ExecutorService pool = Executors.newFixedThreadPool(limit, runnable -> {
+            final Thread result = new Thread(runnable, "survey-bulkhead");
+            result.setDaemon(true);
+            return result;
+        });
+        return new Bulkhead(limit, pool, pool);
+    }
+
+    /**
+     * @param limit    max number of concurrent tasks
+     * @param executor executor which runs the tasks - it is not closed by the {@link Bulkhead}
+     * @return {@link Bulkhead}
+     */
+    public static Bulkhead of(final int limit, final Executor executor) {
+        return new Bulkhead(limit, executor);
+    }
+
+    public Bulkhead(final int limit, final Executor executor) {
+        this(limit, executor, null);
+    }
+
+    private Bulkhead(final int limit, final Executor executor, final ExecutorService owned) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be positive, given was [" + limit + "]");
+        } else if (executor == null) {
+            throw new IllegalArgumentException("Missing " + Executor.class.getSimpleName() + ", given was null");
+        }
+        this.limit = limit;
+        this.permits = new Semaphore(limit);
+        this.executor = executor;
+        this.owned = owned;
+    }
+
+    /**
+     * Runs the task if the limit is not reached
+     *
+     * @param task task to run
+     * @throws RejectedExecutionException if the limit is reached
+     */
+    @Override
+    public void execute(final Runnable task) {
+        if (!permits.tryAcquire()) {
+            throw new RejectedExecutionException("Bulkhead limit [" + limit + "] reached");
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Runs a blocking call in the bulkhead - the permit is released before the returned future completes
+     *
+     * @param supplier blocking call
+     * @param <T>      type of the result
+     * @return result of the call - fails with {@link RejectedExecutionException} if the limit is reached
+     */
+    public <T> CompletableFuture<T> supply(final Supplier<T> supplier) {
+        if (!permits.tryAcquire()) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Bulkhead limit [" + limit + "] reached"));
+        }
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                T value = null;
+                Throwable error = null;
+                try {
+                    value = supplier.get();
+                } catch (Throwable e) {
+                    error = e;
+                } finally {
+                    permits.release();
+                }
+                if (error == null) {
+                    result.complete(value);
+                } else {
+                    result.completeExceptionally(error);
+                }
+            });
+        } catch (RuntimeException e) {
+            permits.release();
+            return CompletableFuture.failedFuture(e);
+        }
+        return result;
+    }
+
+    /**
+     * Stops the own threads of {@link Bulkhead#of(int)} - running tasks are finished, new tasks are rejected.
+     * A given executor ({@link Bulkhead#of(int, Executor)}) is left untouched.
+     */
+    @Override
+    public void close() {
+        if (owned != null) {
+            owned.shutdown();
+        }
+    }
+
+    /**
+     * @return max number of concurrent tasks
+     */
+    public int limit() {
+        return limit;
+    }
+
+    /**
+     * @return number of tasks which can be started right now
+     */
+    public int available() {
+        return permits.availablePermits();
+    }
+
+    @Override
+    public String toString() {
+        return "Bulkhead{" +
+                "limit=" + limit +
+                ", available=" + available() +
+                '}';
+    }
+}
@@ -1,11 +1,10 @@
 package berlin.yuna.survey.logic;
 
+import berlin.yuna.survey.config.SurveyDefaults;
+
 import java.time.LocalDateTime;
-import java.time.ZoneId;
 import java.util.Optional;
 
-import static java.time.LocalDateTime.now;
-
 public class CommonUtils {
 
     private CommonUtils() {
@@ -20,6 +19,6 @@ public class CommonUtils {
     }
 
     public static LocalDateTime getTime() {
-        return now(ZoneId.of("UTC"));
+        return SurveyDefaults.timeSource().now();
     }
 }
@@ -0,0 +1,272 @@
+package berlin.yuna.survey.logic;
+
+import berlin.yuna.survey.model.HistoryItem;
+import berlin.yuna.survey.model.types.FlowItem;
+
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Thread safe session for multiple writers. The state is an immutable {@link PersistentSurvey} which is published
+ * by an {@link AtomicReference} - readers never block and always see a complete state.
+ * Writers are serialized by a lock instead of a compare and set retry loop, so the conditions
+ * ({@link berlin.yuna.survey.model.Condition}) of {@link ConcurrentSurvey#answer(Object)},
+ * {@link ConcurrentSurvey#transitTo(String)} and {@link ConcurrentSurvey#update(UnaryOperator)} run once per call.
+ * {@link ConcurrentSurvey#answerAsync(Object, Object, Executor)} is the exception: it doesn't hold the lock and fails
+ * on a conflicting write - a retry runs the conditions again. Use {@link SurveyEngine} if conditions with side effects
+ * must run once while waiting on {@link berlin.yuna.survey.model.AsyncCondition}s.
+ * Version, idempotency keys and compiled dispatch are part of the {@link PersistentSurvey} and survive every write.
+ */
+@SuppressWarnings({"unused", "UnusedReturnValue"})
+public final class ConcurrentSurvey {
+
+    private final AtomicReference<PersistentSurvey> state;
+    private final ReentrantLock writer = new ReentrantLock();
+
+    /**
+     * Starts new {@link ConcurrentSurvey}
+     *
+     * @param flowStart start item of the flow
+     * @return {@link ConcurrentSurvey}
+     */
+    public static ConcurrentSurvey init(final FlowItem<?, ?> flowStart) {
+        return new ConcurrentSurvey(PersistentSurvey.init(flowStart));
+    }
+
+    /**
+     * Continues a {@link Survey} - the {@link Survey} is copied once
+     *
+     * @param survey {@link Survey} to continue
+     * @return {@link ConcurrentSurvey}
+     */
+    public static ConcurrentSurvey of(final Survey survey) {
+        return new ConcurrentSurvey(PersistentSurvey.of(survey));
+    }
+
+    public ConcurrentSurvey(final PersistentSurvey state) {
+        this.state = new AtomicReference<>(state);
+    }
+
+    /**
+     * Solves the current {@link FlowItem} of the flow - concurrent writers are applied one after another
+     *
+     * @param answer answer to solve the current {@link FlowItem}
+     * @return published state after the answer
+     */
+    public PersistentSurvey answer(final Object answer) {
+        return update(current -> current.answer(answer));
+    }
+
+    /**
+     * Solves the current {@link FlowItem} of the flow - concurrent writers are applied one after another
+     *
+     * @param answer  answer to solve the current {@link FlowItem}
+     * @param context sets the context on {@link berlin.yuna.survey.model.ContextExchange}
+     * @return published state after the answer
+     */
+    public PersistentSurvey answer(final Object answer, final Object context) {
+        return update(current -> current.answer(answer, context));
+    }
+
+    /**
+     * Solves the current {@link FlowItem} of the flow without blocking on {@link berlin.yuna.survey.model.AsyncCondition}s
+     * The lock is not held while the routes are resolved - the result is only published if no other writer changed
+     * the state in the meantime, otherwise the future fails with a {@link ConcurrentModificationException}. The
+     * conditions of the discarded answer already ran - a retry on the latest state runs them again.
+     *
+     * @param answer   answer to solve the current {@link FlowItem}
+     * @param context  sets the context on {@link berlin.yuna.survey.model.ContextExchange}
+     * @param executor runs the routes and the update after an {@link berlin.yuna.survey.model.AsyncCondition} completed
+     * @return published state after the answer
+     */
+    public CompletableFuture<PersistentSurvey> answerAsync(final Object answer, final Object context, final Executor executor) {
+        final PersistentSurvey base = state.get();
+        return base.answerAsync(answer, context, executor).thenApply(result -> {
+            if (result == base) {
+                return state.get();
+            }
+            writer.lock();
+            try {
+                if (state.get() != base) {
+                    throw new ConcurrentModificationException("State was changed while answering [" + base.get().label() + "]");
+                }
+                state.set(result);
+                return result;
+            } finally {
+                writer.unlock();
+            }
+        });
+    }
+
+    /**
+     * Solves the current {@link FlowItem} of the flow only if no other writer changed the state in the meantime
+     *
+     * @param expectedVersion version which was read before - see {@link ConcurrentSurvey#getVersion()}
+     * @param answer          answer to solve the current {@link FlowItem}
+     * @return {@code false} if the version doesn't match or the answer was already applied and nothing was changed
+     */
+    public boolean answerIfVersion(final long expectedVersion, final Object answer) {
+        writer.lock();
+        try {
+            final PersistentSurvey current = state.get();
+            if (current.getVersion() != expectedVersion) {
+                return false;
+            }
+            final PersistentSurvey result = current.answer(answer);
+            state.set(result);
+            return result != current;
+        } finally {
+            writer.unlock();
+        }
+    }
+
+    /**
+     * Transit to a specific {@link FlowItem} in the flow - concurrent writers are applied one after another
+     *
+     * @param label for {@link FlowItem} to transition to
+     * @return published state after the transition
+     */
+    public PersistentSurvey transitTo(final String label) {
+        return update(current -> current.transitTo(label));
+    }
+
+    /**
+     * Transit to a specific {@link FlowItem} in the flow - concurrent writers are applied one after another
+     *
+     * @param target  {@link FlowItem} to transition to
+     * @param context sets the context on {@link berlin.yuna.survey.model.ContextExchange}
+     * @return published state after the transition
+     */
+    public PersistentSurvey transitTo(final FlowItem<?, ?> target, final Object context) {
+        return update(current -> current.transitTo(target, context));
+    }
+
+    /**
+     * Transit to a specific {@link FlowItem} in the flow and tells if the transition was blocked - concurrent writers
+     * are applied one after another
+     *
+     * @param label for {@link FlowItem} to transition to
+     * @return {@link PersistentSurvey.Transition} with the published state
+     */
+    public PersistentSurvey.Transition tryTransitTo(final String label) {
+        return transit(current -> current.tryTransitTo(label));
+    }
+
+    /**
+     * Transit to a specific {@link FlowItem} in the flow and tells if the transition was blocked - concurrent writers
+     * are applied one after another
+     *
+     * @param target  {@link FlowItem} to transition to
+     * @param context sets the context on {@link berlin.yuna.survey.model.ContextExchange}
+     * @return {@link PersistentSurvey.Transition} with the published state
+     */
+    public PersistentSurvey.Transition tryTransitTo(final FlowItem<?, ?> target, final Object context) {
+        return transit(current -> current.tryTransitTo(target, context));
+    }
+
+    /**
+     * Applies a change to the latest state and publishes the result - the change is never applied twice
+     *
+     * @param change change of the state
+     * @return published state
+     */
+    public PersistentSurvey update(final UnaryOperator<PersistentSurvey> change) {
+        writer.lock();
+        try {
+            final PersistentSurvey result = change.apply(state.get());
+            state.set(result);
+            return result;
+        } finally {
+            writer.unlock();
+        }
+    }
+
+    private PersistentSurvey.Transition transit(final Function<PersistentSurvey, PersistentSurvey.Transition> transition) {
+        writer.lock();
+        try {
+            final PersistentSurvey.Transition result = transition.apply(state.get());
+            state.set(result.survey());
+            return result;
+        } finally {
+            writer.unlock();
+        }
+    }
+
+    /**
+     * Latest published state - doesn't block
+     *
+     * @return {@link PersistentSurvey}
+     */
+    public PersistentSurvey state() {
+        return state.get();
+    }
+
+    /**
+     * Version of the latest state - doesn't block
+     *
+     * @return version which is increased by every change - see {@link PersistentSurvey#getVersion()}
+     */
+    public long getVersion() {
+        return state.get().getVersion();
+    }
+
+    /**
+     * Checks if an answer with the given key was already applied - doesn't block
+     *
+     * @param idempotencyKey key of {@link berlin.yuna.survey.model.ContextExchange#idempotencyKey()}
+     * @return {@code true} if the key is remembered
+     */
+    public boolean isProcessed(final String idempotencyKey) {
+        return state.get().isProcessed(idempotencyKey);
+    }
+
+    /**
+     * Get current {@link FlowItem} of the flow - doesn't block
+     *
+     * @return {@link FlowItem} of the current flow
+     */
+    public FlowItem<?, ?> get() {
+        return state.get().get();
+    }
+
+    /**
+     * Check if the current flow has ended - doesn't block
+     *
+     * @return true if there is no next {@link FlowItem}
+     */
+    public boolean isEnded() {
+        return state.get().isEnded();
+    }
+
+    /**
+     * Get history of answers - doesn't block
+     *
+     * @return copies of all answers of the latest state
+     */
+    public List<HistoryItem> getHistory() {
+        return state.get().getHistory();
+    }
+
+    /**
+     * Creates a mutable {@link Survey} with the latest state
+     *
+     * @return {@link Survey}
+     */
+    public Survey toSurvey() {
+        return state.get().toSurvey();
+    }
+
+    @Override
+    public String toString() {
+        return "ConcurrentSurvey{" +
+                "current=" + get() +
+                ", locked=" + writer.isLocked() +
+                '}';
+    }
+}
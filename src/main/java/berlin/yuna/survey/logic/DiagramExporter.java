@@ -143,7 +143,7 @@ public class DiagramExporter {
             if (link(previous, route, true)) {
                 //CHOICE
                 if (current.targets().size() > 1 && config.getOrDefault(ITEM_CHOICE, CONFIG_KEY_SHAPE, Shape.NONE) != Shape.NONE) {
-                    final String id = survey.getHistory().stream().filter(item -> !survey.get().match(item)).filter(item -> current.targets().stream().anyMatch(item::match)).findFirst().map(HistoryItemBase::getLabel).orElse(current.label() + SUFFIX_CHOICE);
+                    final String id = survey.history().stream().filter(item -> !survey.get().match(item)).filter(item -> current.targets().stream().anyMatch(item::match)).findFirst().map(HistoryItemBase::getLabel).orElse(current.label() + SUFFIX_CHOICE);
                     final Question option = Question.of(current.label() + SUFFIX_CHOICE);
                     getNode(ITEM_CHOICE, option, id);
                     link(current, new Route<>(option, null, null, false), false);
@@ -235,7 +235,7 @@ public class DiagramExporter {
     }
 
     private Attributes<? extends ForNode> getColorFromHistory(final String label) {
-        return survey.getHistory().stream()
+        return survey.history().stream()
                 .filter(item -> item.getLabel().equals(label))
                 .findFirst()
                 .map(item -> {
@@ -0,0 +1,79 @@
+package berlin.yuna.survey.logic;
+
+import berlin.yuna.survey.model.ContextExchange;
+import berlin.yuna.survey.model.Evaluation;
+import berlin.yuna.survey.model.types.CompiledFlow;
+import berlin.yuna.survey.model.types.FlowItem;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static berlin.yuna.survey.model.ContextExchange.contextOf;
+
+/**
+ * The {@link FlowEvaluator} validates complete submissions without a {@link Survey}. It walks the
+ * {@link CompiledFlow} from the first item with the given answers and creates no history. The routes are dispatched by
+ * the {@link berlin.yuna.survey.model.types.FlowMachine} of the flow - a modified flow is compiled again.
+ * The evaluation only reads the flow - any number of submissions can be evaluated in parallel, ideally on a frozen
+ * flow ({@link FlowItem#freeze()}).
+ */
+@SuppressWarnings({"unused", "UnusedReturnValue"})
+public final class FlowEvaluator {
+
+    private FlowEvaluator() {
+    }
+
+    /**
+     * Evaluates one submission
+     *
+     * @param flowStart start item of the flow
+     * @param answers   answers by {@code label}
+     * @return {@link Evaluation}
+     */
+    public static Evaluation evaluate(final FlowItem<?, ?> flowStart, final Map<String, ?> answers) {
+        return evaluate(flowStart.compile(), answers);
+    }
+
+    /**
+     * Evaluates submissions in parallel
+     *
+     * @param flowStart   start item of the flow
+     * @param submissions answers by {@code label} per submission
+     * @return {@link Evaluation}s in order of the submissions
+     */
+    public static Stream<Evaluation> evaluate(final FlowItem<?, ?> flowStart, final Stream<? extends Map<String, ?>> submissions) {
+        final CompiledFlow flow = flowStart.compile();
+        return submissions.parallel().map(answers -> evaluate(flow, answers));
+    }
+
+    private static Evaluation evaluate(final CompiledFlow snapshot, final Map<String, ?> answers) {
+        final CompiledFlow flow = snapshot.isValid() ? snapshot : snapshot.first().compile();
+        final boolean[] visited = new boolean[flow.capacity()];
+        final ContextExchange exchange = contextOf(null);
+        FlowItem<?, ?> item = flow.first();
+        int steps = 0;
+        while (true) {
+            final int id = flow.id(item.label());
+            if (visited[id]) {
+                return new Evaluation(Evaluation.Status.CYCLE, item, steps);
+            } else if (!answers.containsKey(item.label())) {
+                return new Evaluation(Evaluation.Status.MISSING_ANSWER, item, steps);
+            }
+            visited[id] = true;
+            final Optional<?> parsed = item.parse(exchange.payload(answers.get(item.label())));
+            if (parsed.isEmpty()) {
+                return new Evaluation(Evaluation.Status.INVALID_ANSWER, item, steps);
+            }
+            steps++;
+            final FlowItem<?, ?> next = flow.machine().next(id, parsed.get());
+            if (next != null) {
+                item = next;
+            } else if (flow.targetCount(id) == 0) {
+                return new Evaluation(Evaluation.Status.COMPLETED, item, steps);
+            } else {
+                return new Evaluation(Evaluation.Status.NO_ROUTE, item, steps);
+            }
+        }
+    }
+}
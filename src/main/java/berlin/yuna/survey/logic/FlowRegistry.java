@@ -0,0 +1,173 @@
+package berlin.yuna.survey.logic;
+
+import berlin.yuna.survey.model.FlowStats;
+import berlin.yuna.survey.model.HistoryItemBase;
+import berlin.yuna.survey.model.exception.FlowRuntimeException;
+import berlin.yuna.survey.model.types.CompiledFlow;
+import berlin.yuna.survey.model.types.FlowItem;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The {@link FlowRegistry} holds frozen flows by {@code name} and {@code version}.
+ * All {@link Survey}s which are started by the registry share the same flow instance -
+ * a frozen flow can't be modified and is safe to be used by any number of threads.
+ * The registry doesn't track the end of a {@link Survey} - {@link FlowStats#sessionsStarted()} is a cumulative counter
+ * and not the number of live sessions.
+ */
+@SuppressWarnings({"unused", "UnusedReturnValue"})
+public class FlowRegistry {
+
+    // rough object sizes of a 64bit JVM with compressed oops
+    private static final long BYTES_NODE = 256;
+    private static final long BYTES_ROUTE = 64;
+    private static final long BYTES_LINK = 40;
+
+    private final Map<String, Entry> flows = new ConcurrentHashMap<>();
+
+    /**
+     * Registers and freezes a flow - see {@link FlowItem#freeze()}
+     * Registering the same flow twice has no effect
+     *
+     * @param name    name of the flow
+     * @param version version of the flow
+     * @param flow    start item of the flow
+     * @return {@link CompiledFlow} of the registered flow
+     * @throws FlowRuntimeException if another flow is already registered with the same {@code name} and {@code version}
+     */
+    public CompiledFlow register(final String name, final String version, final FlowItem<?, ?> flow) {
+        final String key = keyOf(name, version);
+        Entry entry = flows.get(key);
+        if (entry == null) {
+            // freezing walks the whole flow - not inside the mapping function which blocks the bin of the map
+            final Entry frozen = new Entry(name, version, flow.freeze());
+            entry = flows.computeIfAbsent(key, k -> frozen);
+        }
+        if (entry.flow.first() != flow) {
+            throw new FlowRuntimeException(flow.label(), key, "Flow [" + key + "] is already registered");
+        }
+        return entry.flow;
+    }
+
+    /**
+     * Removes a flow from the registry - running {@link Survey}s are not affected
+     *
+     * @param name    name of the flow
+     * @param version version of the flow
+     * @return {@code true} if the flow was registered
+     */
+    public boolean unregister(final String name, final String version) {
+        return flows.remove(keyOf(name, version)) != null;
+    }
+
+    /**
+     * @param name    name of the flow
+     * @param version version of the flow
+     * @return {@link CompiledFlow} or {@link Optional#empty()} if the flow is not registered
+     */
+    public Optional<CompiledFlow> get(final String name, final String version) {
+        return Optional.ofNullable(flows.get(keyOf(name, version))).map(entry -> entry.flow);
+    }
+
+    /**
+     * Starts new {@link Survey} with a registered flow
+     *
+     * @param name    name of the flow
+     * @param version version of the flow
+     * @return {@link Survey}
+     * @throws FlowRuntimeException if the flow is not registered
+     */
+    public Survey init(final String name, final String version) {
+        return Survey.init(session(name, version));
+    }
+
+    /**
+     * Continues {@link Survey} from a history with a registered flow
+     *
+     * @param name    name of the flow
+     * @param version version of the flow
+     * @param history should not be empty as {@link Survey} needs a start item
+     * @return {@link Survey}
+     * @throws FlowRuntimeException if the flow is not registered
+     */
+    public Survey init(final String name, final String version, final Iterable<? extends HistoryItemBase<?>> history) {
+        return Survey.init(session(name, version), history);
+    }
+
+    /**
+     * @param name    name of the flow
+     * @param version version of the flow
+     * @return {@link FlowStats} or {@link Optional#empty()} if the flow is not registered
+     */
+    public Optional<FlowStats> stats(final String name, final String version) {
+        return Optional.ofNullable(flows.get(keyOf(name, version))).map(Entry::stats);
+    }
+
+    /**
+     * @return {@link FlowStats} of all registered flows
+     */
+    public List<FlowStats> stats() {
+        return flows.values().stream().map(Entry::stats).toList();
+    }
+
+    /**
+     * @return number of registered flows
+     */
+    public int size() {
+        return flows.size();
+    }
+
+    private FlowItem<?, ?> session(final String name, final String version) {
+        final String key = keyOf(name, version);
+        final Entry entry = flows.get(key);
+        if (entry == null) {
+            throw new FlowRuntimeException(null, key, "Flow [" + key + "] is not registered");
+        }
+        entry.sessionsStarted.increment();
+        return entry.flow.first();
+    }
+
+    private static String keyOf(final String name, final String version) {
+        if (name == null || version == null) {
+            throw new FlowRuntimeException(null, name, "Flow name and version must not be null");
+        }
+        return name + ":" + version;
+    }
+
+    private static final class Entry {
+
+        private final String name;
+        private final String version;
+        private final CompiledFlow flow;
+        private final int routes;
+        private final long estimatedBytes;
+        // cumulative - sessions are never released
+        private final LongAdder sessionsStarted = new LongAdder();
+
+        private Entry(final String name, final String version, final CompiledFlow flow) {
+            this.name = name;
+            this.version = version;
+            this.flow = flow;
+            int routeCount = 0;
+            long bytes = 0;
+            for (int id = 0; id < flow.capacity(); id++) {
+                final FlowItem<?, ?> node = flow.node(id);
+                if (node == null) {
+                    continue;
+                }
+                routeCount += node.transitions().size();
+                bytes += BYTES_NODE + 2L * node.label().length() + BYTES_LINK * (flow.targetCount(id) + flow.parentCount(id));
+            }
+            this.routes = routeCount;
+            this.estimatedBytes = bytes + BYTES_ROUTE * routeCount;
+        }
+
+        private FlowStats stats() {
+            return new FlowStats(name, version, flow.size(), routes, estimatedBytes, sessionsStarted.sum());
+        }
+    }
+}
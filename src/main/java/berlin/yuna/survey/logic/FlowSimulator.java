@@ -0,0 +1,198 @@
+package berlin.yuna.survey.logic;
+
+import berlin.yuna.survey.model.FlowOutcome;
+import berlin.yuna.survey.model.types.CompiledFlow;
+import berlin.yuna.survey.model.types.FlowItem;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static berlin.yuna.survey.model.exception.QuestionNotFoundException.itemNotFound;
+
+/**
+ * The {@link FlowSimulator} computes all reachable ends of a flow without answering any {@link FlowItem}.
+ * Every route is treated as possible - conditions are not evaluated. The simulation walks the forward routes of the
+ * {@link CompiledFlow} once per start item: a breadth first search finds the shortest paths and a topological walk
+ * finds the longest paths. Items on or behind a cycle have no longest path ({@link FlowOutcome#UNBOUNDED}).
+ * The results are cached by start item until the flow is modified.
+ */
+@SuppressWarnings({"unused", "UnusedReturnValue"})
+public final class FlowSimulator {
+
+    private static final int NONE = -1;
+    private final FlowItem<?, ?> flowStart;
+    private volatile Cache cache;
+
+    /**
+     * @param flowStart any item of the flow
+     * @return {@link FlowSimulator}
+     */
+    public static FlowSimulator of(final FlowItem<?, ?> flowStart) {
+        return new FlowSimulator(flowStart);
+    }
+
+    public FlowSimulator(final FlowItem<?, ?> flowStart) {
+        if (flowStart == null) {
+            throw new IllegalArgumentException("Missing " + FlowItem.class.getSimpleName() + ", given was null");
+        }
+        this.flowStart = flowStart;
+    }
+
+    /**
+     * Reachable ends from the current item of the {@link Survey} - the {@link Survey} is not modified.
+     * Answered items of the history only follow their known route, same as {@link Survey#lookahead(int)}
+     *
+     * @param survey {@link Survey} of the flow
+     * @return reachable ends ordered by {@link FlowOutcome#minSteps()}
+     * @throws berlin.yuna.survey.model.exception.QuestionNotFoundException if the current item is not part of the flow
+     */
+    public List<FlowOutcome> simulate(final Survey survey) {
+        final CompiledFlow flow = cache().flow;
+        final int start = idOf(flow, survey.get());
+        final int[] known = new int[flow.capacity()];
+        boolean guided = false;
+        for (int id = 0; id < known.length; id++) {
+            known[id] = id == start || flow.node(id) == null ? NONE : survey.knownTarget(flow, id);
+            guided |= known[id] != NONE;
+        }
+        return guided ? simulate(flow, start, known) : simulate(survey.get());
+    }
+
+    /**
+     * Reachable ends from the given item
+     *
+     * @param from start item of the simulation
+     * @return reachable ends ordered by {@link FlowOutcome#minSteps()}
+     * @throws berlin.yuna.survey.model.exception.QuestionNotFoundException if the item is not part of the flow
+     */
+    public List<FlowOutcome> simulate(final FlowItem<?, ?> from) {
+        final Cache current = cache();
+        final int id = idOf(current.flow, from);
+        List<FlowOutcome> result = current.outcomes.get(id);
+        if (result == null) {
+            result = simulate(current.flow, id, null);
+            current.outcomes.set(id, result);
+        }
+        return result;
+    }
+
+    private int idOf(final CompiledFlow flow, final FlowItem<?, ?> item) {
+        final int id = flow.id(item.label());
+        if (id == NONE) {
+            throw itemNotFound(item.label(), flowStart.label());
+        }
+        return id;
+    }
+
+    private Cache cache() {
+        final CompiledFlow flow = flowStart.compile();
+        Cache result = cache;
+        if (result == null || result.flow != flow) {
+            result = new Cache(flow);
+            cache = result;
+        }
+        return result;
+    }
+
+    /**
+     * @param known known target per item or {@code null} if every route is possible
+     */
+    private static List<FlowOutcome> simulate(final CompiledFlow flow, final int start, final int[] known) {
+        final int capacity = flow.capacity();
+        final int[] previous = new int[capacity];
+        final int[] incoming = new int[capacity];
+        final boolean[] reached = new boolean[capacity];
+        final int[] queue = new int[capacity];
+        Arrays.fill(previous, NONE);
+        reached[start] = true;
+        queue[0] = start;
+        int size = 1;
+        for (int head = 0; head < size; head++) {
+            final int id = queue[head];
+            for (int i = 0; i < flow.targetCount(id); i++) {
+                final int target = flow.target(id, i);
+                if (!follows(known, id, target)) {
+                    continue;
+                }
+                incoming[target]++;
+                if (!reached[target]) {
+                    reached[target] = true;
+                    previous[target] = id;
+                    queue[size++] = target;
+                }
+            }
+        }
+        final int[] longest = longestPaths(flow, start, incoming, known);
+        final List<FlowOutcome> result = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            final int id = queue[i];
+            if (flow.targetCount(id) == 0) {
+                result.add(new FlowOutcome(flow.node(id), pathOf(flow, previous, id), longest[id] == NONE ? FlowOutcome.UNBOUNDED : longest[id] + 1));
+            }
+        }
+        result.sort(Comparator.comparingInt(FlowOutcome::minSteps));
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Topological walk over the reached items - items which are never released are on or behind a cycle
+     */
+    private static int[] longestPaths(final CompiledFlow flow, final int start, final int[] incoming, final int[] known) {
+        final int[] result = new int[incoming.length];
+        final int[] queue = new int[incoming.length];
+        Arrays.fill(result, NONE);
+        if (incoming[start] != 0) {
+            return result;
+        }
+        result[start] = 0;
+        queue[0] = start;
+        int size = 1;
+        for (int head = 0; head < size; head++) {
+            final int id = queue[head];
+            for (int i = 0; i < flow.targetCount(id); i++) {
+                final int target = flow.target(id, i);
+                if (!follows(known, id, target)) {
+                    continue;
+                }
+                result[target] = Math.max(result[target], result[id] + 1);
+                if (--incoming[target] == 0) {
+                    queue[size++] = target;
+                }
+            }
+        }
+        for (int id = 0; id < incoming.length; id++) {
+            if (incoming[id] != 0) {
+                result[id] = NONE;
+            }
+        }
+        return result;
+    }
+
+    private static boolean follows(final int[] known, final int id, final int target) {
+        return known == null || known[id] == NONE || known[id] == target;
+    }
+
+    private static List<FlowItem<?, ?>> pathOf(final CompiledFlow flow, final int[] previous, final int end) {
+        final List<FlowItem<?, ?>> result = new ArrayList<>();
+        for (int id = end; id != NONE; id = previous[id]) {
+            result.add(flow.node(id));
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    private static final class Cache {
+
+        private final CompiledFlow flow;
+        private final AtomicReferenceArray<List<FlowOutcome>> outcomes;
+
+        private Cache(final CompiledFlow flow) {
+            this.flow = flow;
+            this.outcomes = new AtomicReferenceArray<>(flow.capacity());
+        }
+    }
+}
@@ -0,0 +1,355 @@
+package berlin.yuna.survey.logic;
+
+import berlin.yuna.survey.model.HistoryItem;
+import berlin.yuna.survey.model.HistoryItemBase;
+import berlin.yuna.survey.model.types.CompiledFlow;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Array backed history of a {@link Survey} with a position index by {@link berlin.yuna.survey.model.types.FlowItem#id()}.
+ * The index belongs to one {@link CompiledFlow} and is rebuilt when the flow changes. Labels which are not part of the
+ * flow are resolved by a linear search.
+ * The {@link History} itself is a read-only {@link java.util.List} view - modifications are only possible through
+ * {@link Survey}. The items are owned by the {@link History} - {@link History#reset(Collection)} copies the given
+ * items and {@link History#copies()} never hands out the own items, so the counters can't be bypassed.
+ * The number of answered and draft items is updated on every change of the history through
+ * {@link History#setState(HistoryItem, HistoryItemBase.State)} and {@link History#setAnswer(HistoryItem, Object)}.
+ * Answered items are additionally kept as checkpoints on a navigation stack in the order they were answered. Every item
+ * knows its position on the stack, so a re-answered item moves to the top in constant time and an item which is not
+ * answered anymore leaves the stack - the stack never holds more live entries than the history. Back transitions pop
+ * the stack and only visit the items which are crossed.
+ */
+final class History extends AbstractList<HistoryItem> implements RandomAccess {
+
+    private static final int NONE = -1;
+    private HistoryItem[] items = new HistoryItem[8];
+    private int size;
+    private CompiledFlow indexed;
+    private int[] positions = new int[0];
+    private int answered;
+    private int drafts;
+    private HistoryItem current;
+    private HistoryItem[] path = new HistoryItem[8];
+    private final Map<HistoryItem, Integer> onPath = new IdentityHashMap<>();
+    private int depth;
+
+    /**
+     * @return number of items with answer
+     */
+    int answered() {
+        return answered;
+    }
+
+    /**
+     * @return number of items in {@link HistoryItemBase.State#DRAFT}
+     */
+    int drafts() {
+        return drafts;
+    }
+
+    /**
+     * @param item  item of the history
+     * @param state new state
+     */
+    void setState(final HistoryItem item, final HistoryItemBase.State state) {
+        drafts -= item.isDraft() ? 1 : 0;
+        item.setState(state);
+        drafts += item.isDraft() ? 1 : 0;
+        if (state == HistoryItemBase.State.CURRENT) {
+            current = item;
+        } else if (current == item) {
+            current = null;
+        }
+        if (state == HistoryItemBase.State.ANSWERED) {
+            push(item);
+        } else {
+            leavePath(item);
+        }
+    }
+
+    /**
+     * @return item in {@link HistoryItemBase.State#CURRENT} or {@code null}
+     */
+    HistoryItem current() {
+        return current;
+    }
+
+    /**
+     * Latest checkpoint of the navigation stack - the stack only holds answered items
+     *
+     * @return latest answered item or {@code null} if there is none
+     */
+    HistoryItem checkpoint() {
+        return depth == 0 ? null : path[depth - 1];
+    }
+
+    /**
+     * @return number of checkpoints on the navigation stack
+     */
+    int checkpoints() {
+        return onPath.size();
+    }
+
+    /**
+     * @param item   item of the history
+     * @param answer new answer
+     */
+    void setAnswer(final HistoryItem item, final Object answer) {
+        answered -= item.isAnswered() ? 1 : 0;
+        item.setAnswer(answer);
+        answered += item.isAnswered() ? 1 : 0;
+    }
+
+    /**
+     * @param flow  current flow
+     * @param label label to search
+     * @return position of the first item with the given {@code label} or {@code -1}
+     */
+    int indexOf(final CompiledFlow flow, final String label) {
+        final int id = flow.id(label);
+        if (id == NONE) {
+            return indexOf(label);
+        }
+        return positionsOf(flow)[id];
+    }
+
+    /**
+     * @param flow current flow
+     * @param id   id of the {@link berlin.yuna.survey.model.types.FlowItem}
+     * @return position of the first item with the given {@code id} or {@code -1}
+     */
+    int indexOf(final CompiledFlow flow, final int id) {
+        return positionsOf(flow)[id];
+    }
+
+    /**
+     * @param flow  current flow
+     * @param label label to search
+     * @return first item with the given {@code label} - a new item is appended if there is none
+     */
+    HistoryItem getOrCreate(final CompiledFlow flow, final String label) {
+        final int index = indexOf(flow, label);
+        if (index != NONE) {
+            return items[index];
+        }
+        final HistoryItem result = new HistoryItem(label);
+        append(result);
+        return result;
+    }
+
+    /**
+     * @param item item to append
+     */
+    void append(final HistoryItem item) {
+        if (size == items.length) {
+            items = Arrays.copyOf(items, size * 2);
+        }
+        items[size] = item;
+        count(item, 1);
+        if (indexed != null) {
+            final int id = indexed.id(item.getLabel());
+            if (id != NONE && positions[id] == NONE) {
+                positions[id] = size;
+            }
+        }
+        size++;
+        modCount++;
+    }
+
+    /**
+     * @param index position of the item to remove
+     * @return removed item
+     */
+    HistoryItem removeAt(final int index) {
+        final HistoryItem result = get(index);
+        count(result, -1);
+        leavePath(result);
+        if (current == result) {
+            current = null;
+        }
+        if (index == size - 1 && indexed != null) {
+            final int id = indexed.id(result.getLabel());
+            if (id != NONE && positions[id] == index) {
+                positions[id] = NONE;
+            }
+        } else {
+            indexed = null;
+        }
+        System.arraycopy(items, index + 1, items, index, size - index - 1);
+        items[--size] = null;
+        modCount++;
+        return result;
+    }
+
+    /**
+     * @param flow current flow
+     * @param item item to remove
+     * @return {@code true} if the item was part of the history
+     */
+    boolean remove(final CompiledFlow flow, final HistoryItem item) {
+        int index = indexOf(flow, item.getLabel());
+        if (index == NONE || items[index] != item) {
+            index = NONE;
+            for (int i = size - 1; i >= 0 && index == NONE; i--) {
+                index = items[i] == item ? i : NONE;
+            }
+        }
+        if (index != NONE) {
+            removeAt(index);
+        }
+        return index != NONE;
+    }
+
+    /**
+     * Replaces all items with copies of the given items
+     *
+     * @param history new items
+     */
+    void reset(final Collection<HistoryItem> history) {
+        items = new HistoryItem[Math.max(8, history.size())];
+        size = 0;
+        for (HistoryItem item : history) {
+            items[size++] = copyOf(item);
+        }
+        indexed = null;
+        answered = 0;
+        drafts = 0;
+        current = null;
+        path = new HistoryItem[items.length];
+        onPath.clear();
+        depth = 0;
+        for (int i = 0; i < size; i++) {
+            count(items[i], 1);
+            if (items[i].isCurrent()) {
+                current = items[i];
+            } else if (items[i].getState() == HistoryItemBase.State.ANSWERED) {
+                push(items[i]);
+            }
+        }
+        modCount++;
+    }
+
+    /**
+     * @return read-only view which returns a copy of the item on every access
+     */
+    List<HistoryItem> copies() {
+        return new Copies();
+    }
+
+    /**
+     * @param item item to copy
+     * @return new item with the same label, answer, creation time and state
+     */
+    static HistoryItem copyOf(final HistoryItem item) {
+        return new HistoryItem(item.getLabel(), item.getAnswer(), item.getCreatedAt(), item.getState());
+    }
+
+    @Override
+    public HistoryItem get(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return items[index];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private int[] positionsOf(final CompiledFlow flow) {
+        if (indexed != flow) {
+            positions = new int[flow.capacity()];
+            Arrays.fill(positions, NONE);
+            for (int i = 0; i < size; i++) {
+                final int id = flow.id(items[i].getLabel());
+                if (id != NONE && positions[id] == NONE) {
+                    positions[id] = i;
+                }
+            }
+            indexed = flow;
+        }
+        return positions;
+    }
+
+    /**
+     * Moves the item to the top of the navigation stack - the old position is left as a gap which is removed lazily
+     */
+    private void push(final HistoryItem item) {
+        final Integer position = onPath.get(item);
+        if (position != null) {
+            if (position == depth - 1) {
+                return;
+            }
+            path[position] = null;
+        }
+        if (depth == path.length) {
+            if (onPath.size() * 2 <= depth) {
+                compactPath();
+            } else {
+                path = Arrays.copyOf(path, depth * 2);
+            }
+        }
+        onPath.put(item, depth);
+        path[depth++] = item;
+    }
+
+    private void leavePath(final HistoryItem item) {
+        final Integer position = onPath.remove(item);
+        if (position != null) {
+            path[position] = null;
+            while (depth > 0 && path[depth - 1] == null) {
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * Removes the gaps of moved items - runs at most once per {@code depth / 2} pushes
+     */
+    private void compactPath() {
+        int next = 0;
+        for (int i = 0; i < depth; i++) {
+            if (path[i] != null) {
+                onPath.put(path[i], next);
+                path[next++] = path[i];
+            }
+        }
+        Arrays.fill(path, next, depth, null);
+        depth = next;
+    }
+
+    private void count(final HistoryItem item, final int delta) {
+        answered += item.isAnswered() ? delta : 0;
+        drafts += item.isDraft() ? delta : 0;
+    }
+
+    private final class Copies extends AbstractList<HistoryItem> implements RandomAccess {
+
+        @Override
+        public HistoryItem get(final int index) {
+            return copyOf(History.this.get(index));
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    private int indexOf(final String label) {
+        for (int i = 0; i < size; i++) {
+            if (label.equals(items[i].getLabel())) {
+                return i;
+            }
+        }
+        return NONE;
+    }
+}
@@ -0,0 +1,263 @@
+package berlin.yuna.survey.logic;
+
+import berlin.yuna.survey.model.types.FlowItem;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Shared nothing variant of the {@link SurveyEngine}. Sessions are hashed onto a fixed number of partitions and every
+ * partition is owned by exactly one platform thread. The sessions of a partition are plain fields which are only
+ * touched by its own thread - threads only meet at the request queue of the partition, which is a locking
+ * {@link java.util.concurrent.LinkedBlockingQueue}, and every request allocates its {@link CompletableFuture}.
+ * The metrics of each partition are padded to their own cache line so partitions don't invalidate each other.
+ * The engine must be closed to stop the partition threads - later requests fail with {@link RejectedExecutionException}.
+ */
+@SuppressWarnings({"unused", "UnusedReturnValue"})
+public class PartitionedSurveyEngine implements AutoCloseable {
+
+    private final Partition[] partitions;
+
+    /**
+     * Engine with one partition per available processor
+     */
+    public PartitionedSurveyEngine() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param partitions number of partitions - each partition has its own thread
+     */
+    public PartitionedSurveyEngine(final int partitions) {
+        if (partitions < 1) {
+            throw new IllegalArgumentException("Partitions must be positive, given was [" + partitions + "]");
+        }
+        this.partitions = new Partition[partitions];
+        for (int i = 0; i < partitions; i++) {
+            this.partitions[i] = new Partition(i);
+        }
+    }
+
+    /**
+     * Starts a new session
+     *
+     * @param sessionId id of the session
+     * @param flowStart start item of the flow
+     * @return {@code false} if the session already exists
+     */
+    public CompletableFuture<Boolean> start(final String sessionId, final FlowItem<?, ?> flowStart) {
+        return partitionOf(sessionId).submit(partition -> partition.add(sessionId, Survey.init(flowStart)));
+    }
+
+    /**
+     * Adds an existing {@link Survey} as session - the {@link Survey} must not be used outside the engine anymore
+     *
+     * @param sessionId id of the session
+     * @param survey    {@link Survey} of the session
+     * @return {@code false} if the session already exists
+     */
+    public CompletableFuture<Boolean> start(final String sessionId, final Survey survey) {
+        return partitionOf(sessionId).submit(partition -> partition.add(sessionId, survey));
+    }
+
+    /**
+     * Solves the current {@link FlowItem} of the session
+     *
+     * @param sessionId id of the session
+     * @param answer    answer to solve the current {@link FlowItem}
+     * @return current {@link FlowItem} after the answer
+     */
+    public CompletableFuture<FlowItem<?, ?>> answer(final String sessionId, final Object answer) {
+        return answer(sessionId, answer, null);
+    }
+
+    /**
+     * Solves the current {@link FlowItem} of the session
+     *
+     * @param sessionId id of the session
+     * @param answer    answer to solve the current {@link FlowItem}
+     * @param context   sets the context on {@link berlin.yuna.survey.model.ContextExchange}
+     * @return current {@link FlowItem} after the answer
+     */
+    public CompletableFuture<FlowItem<?, ?>> answer(final String sessionId, final Object answer, final Object context) {
+        return ask(sessionId, survey -> survey.answer(answer, context).get());
+    }
+
+    /**
+     * Transit to a specific {@link FlowItem} in the flow of the session
+     *
+     * @param sessionId id of the session
+     * @param label     for {@link FlowItem} to transition to
+     * @return result of {@link Survey#transitTo(String)}
+     */
+    public CompletableFuture<Boolean> transitTo(final String sessionId, final String label) {
+        return ask(sessionId, survey -> survey.transitTo(label));
+    }
+
+    /**
+     * Runs a function on the thread of the session - the function has exclusive access to the {@link Survey} and
+     * must not keep a reference of it
+     *
+     * @param sessionId id of the session
+     * @param function  function to run on the {@link Survey}
+     * @param <T>       type of the result
+     * @return result of the function - fails with {@link IllegalArgumentException} if the session doesn't exist
+     */
+    public <T> CompletableFuture<T> ask(final String sessionId, final Function<Survey, T> function) {
+        return partitionOf(sessionId).submit(partition -> function.apply(partition.get(sessionId)));
+    }
+
+    /**
+     * Removes a session after all pending requests of the session are processed
+     *
+     * @param sessionId id of the session
+     * @return {@link Survey} of the session or {@link Optional#empty()} if the session doesn't exist
+     */
+    public CompletableFuture<Optional<Survey>> stop(final String sessionId) {
+        return partitionOf(sessionId).submit(partition -> Optional.ofNullable(partition.remove(sessionId)));
+    }
+
+    /**
+     * @return number of partitions
+     */
+    public int partitions() {
+        return partitions.length;
+    }
+
+    /**
+     * @return number of sessions of all partitions
+     */
+    public int size() {
+        int result = 0;
+        for (Partition partition : partitions) {
+            result += partition.size;
+        }
+        return result;
+    }
+
+    /**
+     * @param partition index of the partition
+     * @return number of sessions of the partition
+     */
+    public int size(final int partition) {
+        return partitions[partition].size;
+    }
+
+    /**
+     * @param partition index of the partition
+     * @return number of processed requests of the partition
+     */
+    public long processed(final int partition) {
+        return partitions[partition].processed;
+    }
+
+    /**
+     * @param sessionId id of the session
+     * @return index of the partition which owns the session
+     */
+    public int partition(final String sessionId) {
+        final int hash = sessionId.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), partitions.length);
+    }
+
+    /**
+     * Stops all partition threads after the submitted requests are processed
+     */
+    @Override
+    public void close() {
+        for (Partition partition : partitions) {
+            partition.thread.shutdown();
+        }
+        for (Partition partition : partitions) {
+            try {
+                partition.thread.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private Partition partitionOf(final String sessionId) {
+        return partitions[partition(sessionId)];
+    }
+
+    /**
+     * Cache line in front of the metrics - fields of a super class are laid out before the fields of the subclass
+     */
+    @SuppressWarnings("unused")
+    private abstract static class HeadPadding {
+        private long p00, p01, p02, p03, p04, p05, p06, p07;
+    }
+
+    /**
+     * Metrics of one partition - only written by the partition thread and published for readers of other threads
+     */
+    private abstract static class Metrics extends HeadPadding {
+        protected volatile int size;
+        protected volatile long processed;
+    }
+
+    /**
+     * Cache line behind the metrics - keeps the metrics of neighbouring partitions on different cache lines
+     */
+    @SuppressWarnings("unused")
+    private abstract static class TailPadding extends Metrics {
+        private long p10, p11, p12, p13, p14, p15, p16, p17;
+    }
+
+    /**
+     * Sessions and metrics of one thread - only written by the partition thread
+     */
+    private static final class Partition extends TailPadding {
+
+        private final ExecutorService thread;
+        private final Map<String, Survey> sessions = new HashMap<>();
+
+        private Partition(final int index) {
+            this.thread = Executors.newSingleThreadExecutor(runnable -> {
+                final Thread result = new Thread(runnable, "survey-partition-" + index);
+                result.setDaemon(true);
+                return result;
+            });
+        }
+
+        private <T> CompletableFuture<T> submit(final Function<Partition, T> request) {
+            try {
+                return CompletableFuture.supplyAsync(() -> {
+                    processed++;
+                    return request.apply(this);
+                }, thread);
+            } catch (RejectedExecutionException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+
+        private boolean add(final String sessionId, final Survey survey) {
+            final boolean result = sessions.putIfAbsent(sessionId, survey) == null;
+            size = sessions.size();
+            return result;
+        }
+
+        private Survey get(final String sessionId) {
+            final Survey result = sessions.get(sessionId);
+            if (result == null) {
+                throw new IllegalArgumentException("Unknown session [" + sessionId + "]");
+            }
+            return result;
+        }
+
+        private Survey remove(final String sessionId) {
+            final Survey result = sessions.remove(sessionId);
+            size = sessions.size();
+            return result;
+        }
+    }
+}
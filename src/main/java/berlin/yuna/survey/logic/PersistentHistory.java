@@ -0,0 +1,278 @@
+package berlin.yuna.survey.logic;
+
+import berlin.yuna.survey.model.HistoryItem;
+import berlin.yuna.survey.model.HistoryItemBase;
+import berlin.yuna.survey.model.types.CompiledFlow;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Immutable history of a {@link PersistentSurvey}. The items are stored by their
+ * {@link berlin.yuna.survey.model.types.FlowItem#id()} in a 32-way trie - every change copies only the path to the
+ * changed item and shares all other nodes with the previous version. The order of the items and the navigation
+ * stack of answered items are persistent linked lists which hold every id at most once - a re-answered item moves to
+ * the top of the stack and items which are not answered anymore leave it, so loops don't grow the history.
+ * The ids belong to one {@link CompiledFlow} - see {@link PersistentHistory#rekey(CompiledFlow)}.
+ * The stored {@link HistoryItem}s are never modified - changes always store a new item.
+ */
+final class PersistentHistory {
+
+    private static final int NONE = -1;
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+    static final PersistentHistory EMPTY = new PersistentHistory(new Object[WIDTH], 0, null, null, 0, 0, 0, NONE);
+
+    private final Object[] root;
+    private final int shift;
+    private final Link order;
+    private final Link path;
+    private final int size;
+    private final int answered;
+    private final int drafts;
+    private final int current;
+
+    private PersistentHistory(
+            final Object[] root,
+            final int shift,
+            final Link order,
+            final Link path,
+            final int size,
+            final int answered,
+            final int drafts,
+            final int current
+    ) {
+        this.root = root;
+        this.shift = shift;
+        this.order = order;
+        this.path = path;
+        this.size = size;
+        this.answered = answered;
+        this.drafts = drafts;
+        this.current = current;
+    }
+
+    /**
+     * @param id id of the {@link berlin.yuna.survey.model.types.FlowItem}
+     * @return item with the given {@code id} or {@code null}
+     */
+    HistoryItem get(final int id) {
+        if (id < 0 || (id >>> shift) >= WIDTH) {
+            return null;
+        }
+        Object[] node = root;
+        for (int level = shift; level > 0 && node != null; level -= BITS) {
+            node = (Object[]) node[(id >>> level) & MASK];
+        }
+        return node == null ? null : (HistoryItem) node[id & MASK];
+    }
+
+    /**
+     * Stores the item and updates the counters, the current item and the navigation stack
+     *
+     * @param id   id of the {@link berlin.yuna.survey.model.types.FlowItem}
+     * @param item new item or {@code null} to remove the item
+     * @return new version of the history
+     */
+    PersistentHistory put(final int id, final HistoryItem item) {
+        final HistoryItem previous = get(id);
+        Object[] newRoot = root;
+        int newShift = shift;
+        while ((id >>> newShift) >= WIDTH) {
+            final Object[] grown = new Object[WIDTH];
+            grown[0] = newRoot;
+            newRoot = grown;
+            newShift += BITS;
+        }
+        newRoot = set(newRoot, newShift, id, item);
+        final int newAnswered = answered - count(previous, true) + count(item, true);
+        final int newDrafts = drafts - count(previous, false) + count(item, false);
+        final int newSize = size + (item == null ? 0 : 1) - (previous == null ? 0 : 1);
+        Link newOrder = order;
+        if (previous == null && item != null) {
+            newOrder = new Link(id, order);
+        } else if (previous != null && item == null) {
+            newOrder = without(order, id);
+        }
+        final int newCurrent = item != null && item.isCurrent() ? id : (current == id ? NONE : current);
+        // the stack holds exactly the answered items - only a previously answered item has to be searched on it
+        Link newPath = path;
+        if (isAnswered(item) && !isAnswered(previous)) {
+            newPath = new Link(id, path);
+        } else if (isAnswered(item)) {
+            newPath = path.id == id ? path : new Link(id, without(path, id));
+        } else if (isAnswered(previous)) {
+            newPath = without(path, id);
+        }
+        return new PersistentHistory(newRoot, newShift, newOrder, newPath, newSize, newAnswered, newDrafts, newCurrent);
+    }
+
+    /**
+     * Latest checkpoint of the navigation stack - the stack only holds answered items
+     *
+     * @return id of the latest answered item or {@code -1} if there is none
+     */
+    int checkpoint() {
+        return path == null ? NONE : path.id;
+    }
+
+    /**
+     * @return number of checkpoints on the navigation stack
+     */
+    int checkpoints() {
+        int result = 0;
+        for (Link link = path; link != null; link = link.next) {
+            result++;
+        }
+        return result;
+    }
+
+    /**
+     * @return id of the item in {@link HistoryItemBase.State#CURRENT} or {@code -1}
+     */
+    int current() {
+        return current;
+    }
+
+    /**
+     * @return number of items
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return number of items with answer
+     */
+    int answered() {
+        return answered;
+    }
+
+    /**
+     * @return number of items in {@link HistoryItemBase.State#DRAFT}
+     */
+    int drafts() {
+        return drafts;
+    }
+
+    /**
+     * @return copies of all items in the order they were added
+     */
+    List<HistoryItem> items() {
+        final List<HistoryItem> result = new ArrayList<>(size);
+        for (int id : ids()) {
+            result.add(History.copyOf(get(id)));
+        }
+        return result;
+    }
+
+    /**
+     * Moves all items to the ids of another snapshot of the flow - items which are not part of the snapshot are
+     * dropped
+     *
+     * @param flow snapshot which defines the new ids
+     * @return new version of the history
+     */
+    PersistentHistory rekey(final CompiledFlow flow) {
+        Object[] newRoot = new Object[WIDTH];
+        int newShift = 0;
+        Link newOrder = null;
+        int newSize = 0;
+        int newAnswered = 0;
+        int newDrafts = 0;
+        int newCurrent = NONE;
+        for (int id : ids()) {
+            final HistoryItem item = get(id);
+            final int newId = flow.id(item.getLabel());
+            if (newId != NONE) {
+                for (; (newId >>> newShift) >= WIDTH; newShift += BITS) {
+                    final Object[] grown = new Object[WIDTH];
+                    grown[0] = newRoot;
+                    newRoot = grown;
+                }
+                newRoot = set(newRoot, newShift, newId, item);
+                newOrder = new Link(newId, newOrder);
+                newCurrent = item.isCurrent() ? newId : newCurrent;
+                newAnswered += count(item, true);
+                newDrafts += count(item, false);
+                newSize++;
+            }
+        }
+        final List<Integer> checkpoints = new ArrayList<>();
+        for (Link link = path; link != null; link = link.next) {
+            checkpoints.add(link.id);
+        }
+        Link newPath = null;
+        for (int i = checkpoints.size() - 1; i >= 0; i--) {
+            final HistoryItem item = get(checkpoints.get(i));
+            final int newId = isAnswered(item) ? flow.id(item.getLabel()) : NONE;
+            newPath = newId == NONE ? newPath : new Link(newId, newPath);
+        }
+        return new PersistentHistory(newRoot, newShift, newOrder, newPath, newSize, newAnswered, newDrafts, newCurrent);
+    }
+
+    private int[] ids() {
+        final int[] result = new int[size];
+        final BitSet seen = new BitSet();
+        int index = size;
+        for (Link link = order; link != null && index > 0; link = link.next) {
+            if (!seen.get(link.id) && get(link.id) != null) {
+                seen.set(link.id);
+                result[--index] = link.id;
+            }
+        }
+        return result;
+    }
+
+    private static Object[] set(final Object[] node, final int level, final int id, final HistoryItem item) {
+        final Object[] result = node == null ? new Object[WIDTH] : node.clone();
+        if (level == 0) {
+            result[id & MASK] = item;
+        } else {
+            final int index = (id >>> level) & MASK;
+            result[index] = set((Object[]) result[index], level - BITS, id, item);
+        }
+        return result;
+    }
+
+    /**
+     * @return list without the link of the given {@code id} - shares the tail after the removed link
+     */
+    private static Link without(final Link list, final int id) {
+        int depth = 0;
+        Link link = list;
+        while (link != null && link.id != id) {
+            link = link.next;
+            depth++;
+        }
+        if (link == null) {
+            return list;
+        }
+        final int[] prefix = new int[depth];
+        link = list;
+        for (int i = 0; i < depth; i++, link = link.next) {
+            prefix[i] = link.id;
+        }
+        Link result = link.next;
+        for (int i = depth - 1; i >= 0; i--) {
+            result = new Link(prefix[i], result);
+        }
+        return result;
+    }
+
+    private static boolean isAnswered(final HistoryItem item) {
+        return item != null && item.getState() == HistoryItemBase.State.ANSWERED;
+    }
+
+    private static int count(final HistoryItem item, final boolean answer) {
+        if (item == null) {
+            return 0;
+        }
+        return (answer ? item.isAnswered() : item.isDraft()) ? 1 : 0;
+    }
+
+    private record Link(int id, Link next) {
+    }
+}
@@ -0,0 +1,570 @@
+package berlin.yuna.survey.logic;
+
+import berlin.yuna.survey.model.ContextExchange;
+import berlin.yuna.survey.model.HistoryItem;
+import berlin.yuna.survey.model.HistoryItemBase;
+import berlin.yuna.survey.model.types.CompiledFlow;
+import berlin.yuna.survey.model.types.FlowItem;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+import static berlin.yuna.survey.logic.CommonUtils.getTime;
+import static berlin.yuna.survey.model.ContextExchange.contextOf;
+import static berlin.yuna.survey.model.HistoryItemBase.State.ANSWERED;
+import static berlin.yuna.survey.model.HistoryItemBase.State.CURRENT;
+import static berlin.yuna.survey.model.exception.QuestionNotFoundException.itemNotFound;
+
+/**
+ * Immutable variant of the {@link Survey} - every change returns a new {@link PersistentSurvey} and leaves the
+ * previous one untouched. The history is a persistent structure which shares all unchanged items with the previous
+ * version, so {@link PersistentSurvey#fork()} is free and speculative branches of one session only allocate the items
+ * they change. The transitions are the same as of the {@link Survey} (see {@link SurveyCore}) - a change runs on a
+ * transient editor which is published as a new {@link PersistentSurvey}.
+ * The {@link ContextExchange} of an immutable survey has no {@link ContextExchange#survey()}.
+ */
+@SuppressWarnings({"unused", "UnusedReturnValue"})
+public final class PersistentSurvey {
+
+    private static final int NONE = -1;
+    private static final int IDEMPOTENCY_KEYS = 64;
+    private static final String[] NO_KEYS = new String[0];
+    private final FlowItem<?, ?> flowStart;
+    private final FlowItem<?, ?> last;
+    private final boolean autoBackTransition;
+    private final boolean compiledDispatch;
+    private final PersistentHistory history;
+    private final CompiledFlow keyed;
+    private final long version;
+    private final int keyLimit;
+    private final String[] keys;
+
+    /**
+     * Starts new {@link PersistentSurvey}
+     *
+     * @param flowStart start item of the flow
+     * @return {@link PersistentSurvey}
+     * @throws IllegalArgumentException on {@code null}
+     */
+    public static PersistentSurvey init(final FlowItem<?, ?> flowStart) {
+        if (flowStart == null) {
+            throw new IllegalArgumentException("Missing " + FlowItem.class.getSimpleName() + ", given was null");
+        }
+        final CompiledFlow flow = flowStart.compile();
+        final Editor editor = new PersistentSurvey(flowStart, flowStart, true, false, PersistentHistory.EMPTY, flow, 0, IDEMPOTENCY_KEYS, NO_KEYS).editor();
+        editor.state(flowStart.label(), CURRENT);
+        return editor.build();
+    }
+
+    /**
+     * Copies the state of a {@link Survey} once - all following forks share it
+     *
+     * @param survey {@link Survey} to copy
+     * @return {@link PersistentSurvey}
+     */
+    public static PersistentSurvey of(final Survey survey) {
+        final CompiledFlow flow = survey.getFirst().compile();
+        PersistentHistory history = PersistentHistory.EMPTY;
+        for (HistoryItem item : survey.history()) {
+            final int id = flow.id(item.getLabel());
+            if (id != NONE && history.get(id) == null) {
+                history = history.put(id, new HistoryItem(item.getLabel(), item.getAnswer(), item.getCreatedAt(), item.getState()));
+            }
+        }
+        return new PersistentSurvey(
+                survey.getFirst(),
+                survey.get(),
+                survey.hasAutoBackTransition(),
+                survey.hasCompiledDispatch(),
+                history,
+                flow,
+                survey.getVersion(),
+                survey.getIdempotencyKeys(),
+                survey.processedKeys().toArray(String[]::new)
+        );
+    }
+
+    /**
+     * Creates a branch of the session in constant time - the branch shares the whole history
+     *
+     * @return {@link PersistentSurvey}
+     */
+    public PersistentSurvey fork() {
+        return this;
+    }
+
+    /**
+     * Creates a mutable {@link Survey} with the state of this branch
+     *
+     * @return {@link Survey}
+     */
+    public Survey toSurvey() {
+        final Survey result = Survey.restore(flowStart, last, history.items(), version)
+                .autoBackTransition(autoBackTransition)
+                .compiledDispatch(compiledDispatch)
+                .idempotencyKeys(keyLimit);
+        for (String key : keys) {
+            result.remember(key);
+        }
+        return result;
+    }
+
+    /**
+     * Solves the current {@link FlowItem} of the flow
+     *
+     * @param answer answer to solve the current {@link FlowItem}
+     * @return new {@link PersistentSurvey}
+     */
+    public PersistentSurvey answer(final Object answer) {
+        return answer(answer, null);
+    }
+
+    /**
+     * Solves the current {@link FlowItem} of the flow
+     *
+     * @param answer  answer to solve the current {@link FlowItem}
+     * @param context sets the context on {@link ContextExchange} which is used at {@link FlowItem#parse(ContextExchange)}
+     * @return new {@link PersistentSurvey} - unchanged if the answer was already applied
+     */
+    public PersistentSurvey answer(final Object answer, final Object context) {
+        final Editor editor = editor();
+        return SurveyCore.answer(editor, exchangeOf(answer, context)) ? editor.build() : this;
+    }
+
+    /**
+     * Solves the current {@link FlowItem} of the flow without blocking on {@link berlin.yuna.survey.model.AsyncCondition}s
+     * Same as {@link PersistentSurvey#answerAsync(Object, Object, Executor)} with the {@link ForkJoinPool#commonPool()} - only
+     * suitable if the routes after an {@link berlin.yuna.survey.model.AsyncCondition} don't block.
+     *
+     * @param answer answer to solve the current {@link FlowItem}
+     * @return new {@link PersistentSurvey} after the answer was applied
+     */
+    public CompletableFuture<PersistentSurvey> answerAsync(final Object answer) {
+        return answerAsync(answer, null, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Solves the current {@link FlowItem} of the flow without blocking on {@link berlin.yuna.survey.model.AsyncCondition}s
+     * This {@link PersistentSurvey} is never changed - the result is based on the state at the time of the call.
+     *
+     * @param answer   answer to solve the current {@link FlowItem}
+     * @param context  sets the context on {@link ContextExchange} which is used at {@link FlowItem#parse(ContextExchange)}
+     * @param executor runs the routes and the update after an {@link berlin.yuna.survey.model.AsyncCondition} completed
+     * @return new {@link PersistentSurvey} after the answer was applied - unchanged if the answer was already applied
+     */
+    public CompletableFuture<PersistentSurvey> answerAsync(final Object answer, final Object context, final Executor executor) {
+        final Editor editor = editor();
+        return SurveyCore.answerAsync(editor, exchangeOf(answer, context), executor).thenApply(applied -> applied ? editor.build() : this);
+    }
+
+    /**
+     * Solves the current {@link FlowItem} of the flow only if the {@link PersistentSurvey} wasn't changed in the meantime
+     *
+     * @param expectedVersion version which was read before - see {@link PersistentSurvey#getVersion()}
+     * @param answer          answer to solve the current {@link FlowItem}
+     * @return new {@link PersistentSurvey} - unchanged if the version doesn't match
+     */
+    public PersistentSurvey answerIfVersion(final long expectedVersion, final Object answer) {
+        return expectedVersion == version ? answer(answer) : this;
+    }
+
+    /**
+     * Version of the {@link PersistentSurvey} - increased by every change of the state, same as {@link Survey#getVersion()}
+     *
+     * @return version which is kept by {@link PersistentSurvey#of(Survey)} and {@link PersistentSurvey#toSurvey()}
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Transit to a specific {@link FlowItem} in the flow
+     *
+     * @param label for {@link FlowItem} to transition to
+     * @return new {@link PersistentSurvey} - a blocked back transition keeps the items which were reverted before
+     * @throws IllegalArgumentException if the label is not part of the flow or when the forward transition has not enough answers
+     */
+    public PersistentSurvey transitTo(final String label) {
+        return transitTo(flow().get(label).orElseThrow(() -> itemNotFound(label, flowStart.label())), null);
+    }
+
+    /**
+     * Transit to a specific {@link FlowItem} in the flow
+     *
+     * @param target  {@link FlowItem} to transition to
+     * @param context sets the context on {@link ContextExchange} which is used at {@link FlowItem#parse(ContextExchange)}
+     * @return new {@link PersistentSurvey} - a blocked back transition keeps the items which were reverted before, same as {@link Survey#transitTo(FlowItem, Object)}
+     * @throws IllegalArgumentException if the label is not part of the flow or when the forward transition has not enough answers
+     */
+    public PersistentSurvey transitTo(final FlowItem<?, ?> target, final Object context) {
+        return tryTransitTo(target, context).survey();
+    }
+
+    /**
+     * Transit to a specific {@link FlowItem} in the flow and tells if the transition was blocked
+     *
+     * @param label for {@link FlowItem} to transition to
+     * @return {@link Transition} with the new {@link PersistentSurvey}
+     * @throws IllegalArgumentException if the label is not part of the flow or when the forward transition has not enough answers
+     */
+    public Transition tryTransitTo(final String label) {
+        return tryTransitTo(flow().get(label).orElseThrow(() -> itemNotFound(label, flowStart.label())), null);
+    }
+
+    /**
+     * Transit to a specific {@link FlowItem} in the flow and tells if the transition was blocked
+     *
+     * @param target  {@link FlowItem} to transition to
+     * @param context sets the context on {@link ContextExchange} which is used at {@link FlowItem#parse(ContextExchange)}
+     * @return {@link Transition} with the new {@link PersistentSurvey}
+     * @throws IllegalArgumentException if the label is not part of the flow or when the forward transition has not enough answers
+     */
+    public Transition tryTransitTo(final FlowItem<?, ?> target, final Object context) {
+        final Editor editor = editor();
+        final boolean allowed = SurveyCore.transitTo(editor, target, context);
+        return new Transition(editor.build(), allowed);
+    }
+
+    /**
+     * Defines if back transitions are allowed for non configured back conditions
+     *
+     * @param enableAutomatic {@code true} on default
+     * @return new {@link PersistentSurvey}
+     */
+    public PersistentSurvey autoBackTransition(final boolean enableAutomatic) {
+        return enableAutomatic == autoBackTransition ? this : new PersistentSurvey(flowStart, last, enableAutomatic, compiledDispatch, history, keyed, version, keyLimit, keys);
+    }
+
+    /**
+     * Definition if back transitions are allowed for non configured back conditions
+     *
+     * @return {@code true} on default
+     */
+    public boolean hasAutoBackTransition() {
+        return autoBackTransition;
+    }
+
+    /**
+     * Defines if answers are dispatched by a compiled {@link berlin.yuna.survey.model.types.FlowMachine}
+     *
+     * @param enable {@code false} on default
+     * @return new {@link PersistentSurvey}
+     */
+    public PersistentSurvey compiledDispatch(final boolean enable) {
+        return enable == compiledDispatch ? this : new PersistentSurvey(flowStart, last, autoBackTransition, enable, history, keyed, version, keyLimit, keys);
+    }
+
+    /**
+     * Definition if answers are dispatched by a compiled {@link berlin.yuna.survey.model.types.FlowMachine}
+     *
+     * @return {@code false} on default
+     */
+    public boolean hasCompiledDispatch() {
+        return compiledDispatch;
+    }
+
+    /**
+     * Defines how many {@link ContextExchange#idempotencyKey()}s are remembered - answers with a remembered key are
+     * ignored. The oldest keys are dropped first.
+     *
+     * @param size {@code 64} on default, {@code 0} disables the check
+     * @return new {@link PersistentSurvey} without remembered keys
+     */
+    public PersistentSurvey idempotencyKeys(final int size) {
+        return new PersistentSurvey(flowStart, last, autoBackTransition, compiledDispatch, history, keyed, version, Math.max(0, size), NO_KEYS);
+    }
+
+    /**
+     * Definition how many {@link ContextExchange#idempotencyKey()}s are remembered
+     *
+     * @return {@code 64} on default
+     */
+    public int getIdempotencyKeys() {
+        return keyLimit;
+    }
+
+    /**
+     * Checks if an answer with the given key was already applied
+     *
+     * @param idempotencyKey key of {@link ContextExchange#idempotencyKey()}
+     * @return {@code true} if the key is remembered
+     */
+    public boolean isProcessed(final String idempotencyKey) {
+        return contains(keys, idempotencyKey);
+    }
+
+    /**
+     * Get current {@link FlowItem} of the flow
+     *
+     * @return {@link FlowItem} of the current flow
+     */
+    public FlowItem<?, ?> get() {
+        return last;
+    }
+
+    /**
+     * Get first {@link FlowItem} of the flow
+     *
+     * @return first {@link FlowItem} of the current flow
+     */
+    public FlowItem<?, ?> getFirst() {
+        return flowStart;
+    }
+
+    /**
+     * Check if the current flow has ended
+     *
+     * @return true if there is no next {@link FlowItem}
+     */
+    public boolean isEnded() {
+        return SurveyCore.isEnded(editor());
+    }
+
+    /**
+     * Get answer of a {@link FlowItem}
+     *
+     * @param label {@code label} of the {@link FlowItem}
+     * @return answer or {@link Optional#empty()} if the {@link FlowItem} has no answer
+     */
+    public Optional<Object> getAnswer(final String label) {
+        return Optional.ofNullable(editor().item(label)).map(HistoryItem::getAnswer);
+    }
+
+    /**
+     * Get history of answers
+     *
+     * @return copies of all answers which were given in the context
+     */
+    public List<HistoryItem> getHistory() {
+        return history.items();
+    }
+
+    /**
+     * Get history size
+     *
+     * @return number of given answers
+     */
+    public int getHistorySize() {
+        return history.size();
+    }
+
+    /**
+     * Get number of answers
+     *
+     * @return number of {@link HistoryItem}s with an answer (including drafts)
+     */
+    public int getAnsweredCount() {
+        return history.answered();
+    }
+
+    /**
+     * Get number of drafts
+     *
+     * @return number of {@link HistoryItem}s which were reverted by a back transition
+     */
+    public int getDraftCount() {
+        return history.drafts();
+    }
+
+    /**
+     * @return number of checkpoints for back transitions
+     */
+    int checkpoints() {
+        return history.checkpoints();
+    }
+
+    private PersistentSurvey(
+            final FlowItem<?, ?> flowStart,
+            final FlowItem<?, ?> last,
+            final boolean autoBackTransition,
+            final boolean compiledDispatch,
+            final PersistentHistory history,
+            final CompiledFlow keyed,
+            final long version,
+            final int keyLimit,
+            final String[] keys
+    ) {
+        this.flowStart = flowStart;
+        this.last = last;
+        this.autoBackTransition = autoBackTransition;
+        this.compiledDispatch = compiledDispatch;
+        this.history = history;
+        this.keyed = keyed;
+        this.version = version;
+        this.keyLimit = keyLimit;
+        this.keys = keys;
+    }
+
+    private ContextExchange exchangeOf(final Object answer, final Object context) {
+        return answer instanceof ContextExchange ce ? ce : contextOf(null, answer, context);
+    }
+
+    /**
+     * Ids are only valid for one snapshot of the flow - the editor moves the history to the ids of the current
+     * snapshot after the flow was modified
+     */
+    private Editor editor() {
+        final CompiledFlow flow = flow();
+        return new Editor(this, flow, flow == keyed ? history : history.rekey(flow));
+    }
+
+    private static boolean contains(final String[] keys, final String idempotencyKey) {
+        if (idempotencyKey != null) {
+            for (String key : keys) {
+                if (idempotencyKey.equals(key)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static HistoryItem stateOf(final HistoryItem item, final HistoryItemBase.State state) {
+        return new HistoryItem(item.getLabel(), item.getAnswer(), item.getCreatedAt(), state);
+    }
+
+    private CompiledFlow flow() {
+        return flowStart.compile();
+    }
+
+    /**
+     * Outcome of {@link PersistentSurvey#tryTransitTo(FlowItem, Object)}
+     *
+     * @param survey  new {@link PersistentSurvey} - keeps the items which were reverted before a blocked back transition
+     * @param allowed {@code true} if the target was reached, {@code false} on config of {@link FlowItem#onBack(berlin.yuna.survey.model.Condition[])}
+     */
+    public record Transition(PersistentSurvey survey, boolean allowed) {
+    }
+
+    /**
+     * Transient {@link SurveyCore.State} of one change - {@link Editor#build()} publishes it as a new {@link PersistentSurvey}
+     */
+    private static final class Editor implements SurveyCore.State {
+
+        private final PersistentSurvey origin;
+        private final CompiledFlow flow;
+        private PersistentHistory history;
+        private FlowItem<?, ?> last;
+        private long version;
+        private String[] keys;
+
+        private Editor(final PersistentSurvey origin, final CompiledFlow flow, final PersistentHistory history) {
+            this.origin = origin;
+            this.flow = flow;
+            this.history = history;
+            this.last = origin.last;
+            this.version = origin.version;
+            this.keys = origin.keys;
+        }
+
+        /**
+         * @return new {@link PersistentSurvey} - the origin if nothing was changed
+         */
+        private PersistentSurvey build() {
+            if (history == origin.history && last == origin.last && version == origin.version && keys == origin.keys) {
+                return origin;
+            }
+            return new PersistentSurvey(origin.flowStart, last, origin.autoBackTransition, origin.compiledDispatch, history, flow, version, origin.keyLimit, keys);
+        }
+
+        @Override
+        public FlowItem<?, ?> first() {
+            return origin.flowStart;
+        }
+
+        @Override
+        public FlowItem<?, ?> last() {
+            return last;
+        }
+
+        @Override
+        public void last(final FlowItem<?, ?> item) {
+            last = item;
+        }
+
+        @Override
+        public Survey survey() {
+            return null;
+        }
+
+        @Override
+        public boolean autoBackTransition() {
+            return origin.autoBackTransition;
+        }
+
+        @Override
+        public boolean compiledDispatch() {
+            return origin.compiledDispatch;
+        }
+
+        @Override
+        public HistoryItem item(final String label) {
+            final int id = flow.id(label);
+            return id == NONE ? null : history.get(id);
+        }
+
+        @Override
+        public Object answerOf(final String label) {
+            final HistoryItem item = item(label);
+            return item != null && item.isAnswered() ? item.getAnswer() : null;
+        }
+
+        @Override
+        public void answered(final String label, final Object answer, final boolean touch) {
+            final int id = flow.id(label);
+            if (id != NONE) {
+                final HistoryItem previous = history.get(id);
+                final boolean fresh = touch || previous == null || previous.isNotAnswered();
+                history = history.put(id, new HistoryItem(label, answer, fresh ? getTime() : previous.getCreatedAt(), ANSWERED));
+            }
+        }
+
+        @Override
+        public void state(final String label, final HistoryItemBase.State state) {
+            final int id = flow.id(label);
+            if (id != NONE) {
+                final HistoryItem previous = history.get(id);
+                history = history.put(id, stateOf(previous == null ? new HistoryItem(label) : previous, state));
+            }
+        }
+
+        @Override
+        public void removeCurrent() {
+            if (history.current() != NONE) {
+                history = history.put(history.current(), null);
+            }
+        }
+
+        @Override
+        public String checkpoint() {
+            final int id = history.checkpoint();
+            return id == NONE ? null : history.get(id).getLabel();
+        }
+
+        @Override
+        public boolean isProcessed(final String idempotencyKey) {
+            return contains(keys, idempotencyKey);
+        }
+
+        @Override
+        public void remember(final String idempotencyKey) {
+            final int limit = origin.keyLimit;
+            if (idempotencyKey == null || limit == 0) {
+                return;
+            }
+            final int keep = Math.min(keys.length, limit - 1);
+            final String[] result = Arrays.copyOfRange(keys, keys.length - keep, keys.length + 1);
+            result[keep] = idempotencyKey;
+            keys = result;
+        }
+
+        @Override
+        public void changed() {
+            version++;
+        }
+    }
+}
@@ -5,21 +5,22 @@ import berlin.yuna.survey.model.ContextExchange;
 import berlin.yuna.survey.model.HistoryItem;
 import berlin.yuna.survey.model.HistoryItemBase;
 import berlin.yuna.survey.model.HistoryItemJson;
+import berlin.yuna.survey.model.types.CompiledFlow;
 import berlin.yuna.survey.model.types.FlowItem;
 
 import java.time.Duration;
-import java.util.HashSet;
-import java.util.Iterator;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.function.Function;
-import java.util.stream.Collector;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -27,7 +28,6 @@ import static berlin.yuna.survey.logic.CommonUtils.getTime;
 import static berlin.yuna.survey.model.ContextExchange.contextOf;
 import static berlin.yuna.survey.model.HistoryItemBase.State.ANSWERED;
 import static berlin.yuna.survey.model.HistoryItemBase.State.CURRENT;
-import static berlin.yuna.survey.model.HistoryItemBase.State.DRAFT;
 import static berlin.yuna.survey.model.exception.QuestionNotFoundException.itemNotFound;
 import static berlin.yuna.survey.model.exception.QuestionNotFoundException.itemNotFoundInHistory;
 import static java.util.stream.Collectors.toCollection;
@@ -35,12 +35,16 @@ import static java.util.stream.Collectors.toCollection;
 @SuppressWarnings({"unused", "UnusedReturnValue"})
 public class Survey {
 
-    private static final String TRANSITION = "revert";
+    private static final int IDEMPOTENCY_KEYS = 64;
     private FlowItem<?, ?> last;
     private FlowItem<?, ?> flowStart;
     private boolean autoBackTransition = true;
-    //https://stackoverflow.com/questions/4724995/lock-free-concurrent-linked-list-in-java
-    private final LinkedList<HistoryItem> history = new LinkedList<>();
+    private boolean compiledDispatch = false;
+    private int idempotencyKeys = IDEMPOTENCY_KEYS;
+    private long version;
+    private Map<String, Boolean> processedKeys;
+    private final History history = new History();
+    private final SurveyCore.State state = new CoreState();
 
     /**
      * Starts new SurveyCtx
@@ -63,16 +67,16 @@ public class Survey {
      * @throws IllegalStateException when the {@code history} is empty or has no valid {@link FlowItem}
      */
     public static Survey init(final FlowItem<?, ?> flowStart, final Iterable<? extends HistoryItemBase<?>> history) {
+        final CompiledFlow flow = flowStart.compile();
         final LinkedList<HistoryItem> linkedHistory = StreamSupport.stream(history.spliterator(), false)
-                .map(item -> HistoryItem.of(flowStart, item))
+                .map(item -> HistoryItem.of(flow, item))
                 .flatMap(Optional::stream)
                 .collect(toCollection(LinkedList::new));
         final Survey context = init(flowStart);
         if (linkedHistory.isEmpty()) {
             return init(flowStart);
         }
-        context.history.clear();
-        context.history.addAll(linkedHistory);
+        context.history.reset(linkedHistory);
         context.last = context.findLast(linkedHistory);
         context.flowStart = context.findFirst();
         return context;
@@ -86,7 +90,7 @@ public class Survey {
      * @throws IllegalArgumentException if the label is not part of the flow or when the forward transition has not enough answers
      */
     public boolean transitTo(final String label) {
-        return transitTo(last.get(label).orElseThrow(() -> itemNotFound(label, flowStart.label())));
+        return transitTo(flow().get(label).orElseThrow(() -> itemNotFound(label, flowStart.label())));
     }
 
     /**
@@ -98,7 +102,7 @@ public class Survey {
      * @throws IllegalArgumentException if the label is not part of the flow or when the forward transition has not enough answers
      */
     public boolean transitTo(final String label, final Object context) {
-        return transitTo(last.get(label).orElseThrow(() -> itemNotFound(label, flowStart.label())), context);
+        return transitTo(flow().get(label).orElseThrow(() -> itemNotFound(label, flowStart.label())), context);
     }
 
     /**
@@ -123,18 +127,8 @@ public class Survey {
      *                                  enough answers (will transition to the nearest possible {@link FlowItem})
      */
     public boolean transitTo(final FlowItem<?, ?> target, final Object context) {
-        if (target.equals(get())) {
-            return true;
-        }
-        boolean result = true;
-        assertQuestionBelongsToFlow(target);
-
-        if (history.stream().filter(HistoryItem::isNotDraft).anyMatch(target::match)) {
-            result = runBackTransitions(target, context);
-        } else {
-            runForwardTransitions(target, context);
-        }
-        return result;
+        assertExists(target);
+        return SurveyCore.transitTo(state, target, context);
     }
 
     /**
@@ -155,7 +149,7 @@ public class Survey {
      * requested item
      */
     public FlowItem<?, ?> get(final String label) {
-        return flowStart.get(label).orElse(null);
+        return flow().get(label).orElse(null);
     }
 
     /**
@@ -167,7 +161,7 @@ public class Survey {
      * requested item
      */
     public FlowItem<?, ?> get(final Enum<?> label) {
-        return flowStart.get(label).orElse(null);
+        return label == null ? null : get(label.name());
     }
 
     /**
@@ -178,7 +172,7 @@ public class Survey {
      * requested item
      */
     public <I extends FlowItem<?, ?>> I get(final I type) {
-        return flowStart.get(type).orElse(null);
+        return flow().get(type).orElse(null);
     }
 
     /**
@@ -187,7 +181,87 @@ public class Survey {
      * @return previous {@link FlowItem} and {@code null} if there is no previous entry
      */
     public FlowItem<?, ?> getPrevious() {
-        return last.parents().stream().filter(q -> getHistoryAnswered().anyMatch(item -> item.match(q))).findFirst().orElse(null);
+        final CompiledFlow flow = flow();
+        final int id = flow.id(last.label());
+        for (int i = 0; id != -1 && i < flow.parentCount(id); i++) {
+            final int index = history.indexOf(flow, flow.parent(id, i));
+            if (index != -1 && history.get(index).isAnswered()) {
+                return flow.node(flow.parent(id, i));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the {@link FlowItem}s which can follow the current one - useful to prefetch their resources
+     * The current item leads to all forward targets. Other answered items only lead to the target which follows them
+     * in the history. No conditions are applied. Items without answer or without a recorded successor lead to all
+     * forward targets.
+     *
+     * @param depth maximal number of forward steps
+     * @return reachable {@link FlowItem}s ordered by distance - without the current item
+     */
+    public Set<FlowItem<?, ?>> lookahead(final int depth) {
+        final Set<FlowItem<?, ?>> result = new LinkedHashSet<>();
+        final CompiledFlow flow = flow();
+        final int start = flow.id(last.label());
+        if (start == -1 || depth < 1) {
+            return result;
+        }
+        final boolean[] visited = new boolean[flow.capacity()];
+        final int[] queue = new int[flow.capacity()];
+        visited[start] = true;
+        queue[0] = start;
+        int size = 1;
+        int level = 1;
+        for (int head = 0, end = size; head < size && level <= depth; level++, end = size) {
+            for (; head < end; head++) {
+                final int id = queue[head];
+                final int known = id == start ? -1 : knownTarget(flow, id);
+                for (int i = 0; i < flow.targetCount(id); i++) {
+                    final int target = flow.target(id, i);
+                    if ((known == -1 || known == target) && !visited[target]) {
+                        visited[target] = true;
+                        queue[size++] = target;
+                        result.add(flow.node(target));
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Creates a compact binary image of the {@link Survey} with the current item, all history items with states,
+     * timestamps and typed answers - see {@link Survey#restore(byte[], FlowItem)}
+     *
+     * @return binary snapshot
+     */
+    public byte[] snapshot() {
+        return SurveySnapshot.write(this);
+    }
+
+    /**
+     * Restores a {@link Survey} from a binary image of {@link Survey#snapshot()} without parsing answers or searching
+     * the flow
+     *
+     * @param snapshot  binary snapshot
+     * @param flowStart any item of the flow
+     * @return {@link Survey}
+     * @throws IllegalArgumentException if the snapshot is invalid
+     * @throws berlin.yuna.survey.model.exception.QuestionNotFoundException if the snapshot doesn't belong to the flow
+     */
+    public static Survey restore(final byte[] snapshot, final FlowItem<?, ?> flowStart) {
+        assertExists(flowStart);
+        return SurveySnapshot.read(snapshot, flowStart);
+    }
+
+    static Survey restore(final FlowItem<?, ?> first, final FlowItem<?, ?> current, final List<HistoryItem> history, final long version) {
+        final Survey result = new Survey(first);
+        result.history.reset(history);
+        result.last = current;
+        result.version = version;
+        return result;
     }
 
     /**
@@ -205,16 +279,50 @@ public class Survey {
      * @return true if there is no next {@link FlowItem}
      */
     public boolean isEnded() {
-        return last.targets().isEmpty() && getHistoryAnswered().filter(HistoryItem::isNotDraft).anyMatch(answer -> answer.match(last));
+        return SurveyCore.isEnded(state);
+    }
+
+    /**
+     * Get number of answers
+     *
+     * @return number of {@link HistoryItem}s with an answer (including drafts)
+     */
+    public int getAnsweredCount() {
+        return history.answered();
+    }
+
+    /**
+     * Get number of drafts
+     *
+     * @return number of {@link HistoryItem}s which were reverted by a back transition
+     */
+    public int getDraftCount() {
+        return history.drafts();
     }
 
     /**
      * Get history of answers
      *
-     * @return all answers which were given in the context
+     * @return copies of all answers which were given in the context
      */
     public List<HistoryItem> getHistory() {
-        return new LinkedList<>(history);
+        return new ArrayList<>(history.copies());
+    }
+
+    /**
+     * Get history of answers without copying the list
+     *
+     * @return read-only view of all answers which were given in the context - every access returns a copy of the item
+     */
+    public List<HistoryItem> getHistoryView() {
+        return history.copies();
+    }
+
+    /**
+     * @return own items of the history - must not be modified
+     */
+    List<HistoryItem> history() {
+        return history;
     }
 
     /**
@@ -223,7 +331,8 @@ public class Survey {
      * @return all answers as json format which were given in the context
      */
     public List<HistoryItemJson> getHistoryJson() {
-        return history.stream().map(item -> HistoryItemJson.of(flowStart, item)).flatMap(Optional::stream).collect(toCollection(LinkedList::new));
+        final CompiledFlow flow = flow();
+        return history.stream().map(item -> HistoryItemJson.of(flow, item)).flatMap(Optional::stream).collect(toCollection(LinkedList::new));
     }
 
     /**
@@ -237,6 +346,7 @@ public class Survey {
 
     /**
      * Solves the current {@link FlowItem} of the flow
+     * Answers which were already applied ({@link ContextExchange#idempotencyKey()}) are ignored
      *
      * @param answer answer to solve the current {@link FlowItem}
      * @return {@link Survey}
@@ -247,14 +357,87 @@ public class Survey {
 
     /**
      * Solves the current {@link FlowItem} of the flow
+     * Answers which were already applied ({@link ContextExchange#idempotencyKey()}) are ignored
      *
      * @param answer  answer to solve the current {@link FlowItem}
      * @param context sets the context on {@link ContextExchange} which is used at {@link FlowItem#parse(ContextExchange)}
      * @return {@link Survey}
      */
     public Survey answer(final Object answer, final Object context) {
-        return answer instanceof ContextExchange ? answer((ContextExchange) answer, true) :
-                answer(contextOf(this, answer, context), true);
+        SurveyCore.answer(state, answer instanceof ContextExchange ce ? ce : contextOf(this, answer, context));
+        return this;
+    }
+
+    /**
+     * Solves the current {@link FlowItem} of the flow without blocking on {@link berlin.yuna.survey.model.AsyncCondition}s
+     * Same as {@link Survey#answerAsync(Object, Object, Executor)} with the {@link ForkJoinPool#commonPool()} - only
+     * suitable if the routes after an {@link berlin.yuna.survey.model.AsyncCondition} don't block.
+     *
+     * @param answer answer to solve the current {@link FlowItem}
+     * @return {@link Survey} after the answer was applied
+     */
+    public CompletableFuture<Survey> answerAsync(final Object answer) {
+        return answerAsync(answer, null);
+    }
+
+    /**
+     * Solves the current {@link FlowItem} of the flow without blocking on {@link berlin.yuna.survey.model.AsyncCondition}s
+     * Same as {@link Survey#answerAsync(Object, Object, Executor)} with the {@link ForkJoinPool#commonPool()} - only
+     * suitable if the routes after an {@link berlin.yuna.survey.model.AsyncCondition} don't block.
+     *
+     * @param answer  answer to solve the current {@link FlowItem}
+     * @param context sets the context on {@link ContextExchange} which is used at {@link FlowItem#parse(ContextExchange)}
+     * @return {@link Survey} after the answer was applied
+     */
+    public CompletableFuture<Survey> answerAsync(final Object answer, final Object context) {
+        return answerAsync(answer, context, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Solves the current {@link FlowItem} of the flow without blocking on {@link berlin.yuna.survey.model.AsyncCondition}s
+     * The {@link Survey} is updated when the routes are resolved - it must not be changed until the returned future
+     * is completed. The remaining routes and the update run on the {@code executor} and never on the thread which
+     * completed an {@link berlin.yuna.survey.model.AsyncCondition} (e.g. the timeout timer).
+     *
+     * @param answer   answer to solve the current {@link FlowItem}
+     * @param context  sets the context on {@link ContextExchange} which is used at {@link FlowItem#parse(ContextExchange)}
+     * @param executor runs the routes and the update after an {@link berlin.yuna.survey.model.AsyncCondition} completed
+     * @return {@link Survey} after the answer was applied
+     */
+    public CompletableFuture<Survey> answerAsync(final Object answer, final Object context, final Executor executor) {
+        return SurveyCore.answerAsync(state, answer instanceof ContextExchange ce ? ce : contextOf(this, answer, context), executor).thenApply(applied -> this);
+    }
+
+    /**
+     * Solves the current {@link FlowItem} of the flow only if the {@link Survey} wasn't changed in the meantime
+     *
+     * @param expectedVersion version which was read before - see {@link Survey#getVersion()}
+     * @param answer          answer to solve the current {@link FlowItem}
+     * @return {@code false} if the version doesn't match or the answer was already applied and nothing was changed
+     */
+    public boolean answerIfVersion(final long expectedVersion, final Object answer) {
+        return answerIfVersion(expectedVersion, answer, null);
+    }
+
+    /**
+     * Solves the current {@link FlowItem} of the flow only if the {@link Survey} wasn't changed in the meantime
+     *
+     * @param expectedVersion version which was read before - see {@link Survey#getVersion()}
+     * @param answer          answer to solve the current {@link FlowItem}
+     * @param context         sets the context on {@link ContextExchange} which is used at {@link FlowItem#parse(ContextExchange)}
+     * @return {@code false} if the version doesn't match or the answer was already applied and nothing was changed
+     */
+    public boolean answerIfVersion(final long expectedVersion, final Object answer, final Object context) {
+        return expectedVersion == version && SurveyCore.answer(state, answer instanceof ContextExchange ce ? ce : contextOf(this, answer, context));
+    }
+
+    /**
+     * Version of the {@link Survey} - increased by every answer and transition
+     *
+     * @return version which is kept by {@link Survey#snapshot()}
+     */
+    public long getVersion() {
+        return version;
     }
 
     /**
@@ -274,6 +457,95 @@ public class Survey {
         return result;
     }
 
+    /**
+     * Solves a sequence of {@link FlowItem}s in one pass starting at the current {@link FlowItem}
+     * The status of the {@link Survey} is updated once at the end. Stops at the first answer which can't be parsed
+     * or was already applied ({@link ContextExchange#idempotencyKey()}) without recording it. Stops as well after an
+     * answer which doesn't lead to a next {@link FlowItem} - same as {@link Survey#answerAll(Map)}.
+     *
+     * @param answers answers in order of the flow
+     * @return number of applied answers - if less than {@code answers.size()}, the answer at this position was not applied
+     */
+    public int answerAll(final List<?> answers) {
+        return answerAll(answers, null);
+    }
+
+    /**
+     * Solves a sequence of {@link FlowItem}s in one pass starting at the current {@link FlowItem}
+     * The status of the {@link Survey} is updated once at the end. Stops at the first answer which can't be parsed
+     * or was already applied ({@link ContextExchange#idempotencyKey()}) without recording it. Stops as well after an
+     * answer which doesn't lead to a next {@link FlowItem} - same as {@link Survey#answerAll(Map)}.
+     *
+     * @param answers answers in order of the flow
+     * @param context sets the context on {@link ContextExchange} which is used at {@link FlowItem#parse(ContextExchange)}
+     * @return number of applied answers - if less than {@code answers.size()}, the answer at this position was not applied
+     */
+    public int answerAll(final List<?> answers, final Object context) {
+        final ContextExchange exchange = contextOf(this, null, context);
+        int applied = 0;
+        int step = SurveyCore.STAYED;
+        for (Object answer : answers) {
+            final int result = SurveyCore.answerBatch(state, answer instanceof ContextExchange ce ? ce : exchange.payload(answer));
+            if (result == SurveyCore.NOT_PARSED) {
+                break;
+            }
+            step = result;
+            applied++;
+            if (result == SurveyCore.STAYED) {
+                break;
+            }
+        }
+        SurveyCore.finishBatch(state, step, applied);
+        return applied;
+    }
+
+    /**
+     * Solves {@link FlowItem}s by their {@code label} in one pass starting at the current {@link FlowItem}
+     * Continues as long as there is an answer for the current {@link FlowItem}. The status of the {@link Survey} is
+     * updated once at the end. Stops at the first answer which can't be parsed or was already applied
+     * ({@link ContextExchange#idempotencyKey()}) without recording it - the {@link FlowItem} of this answer is then
+     * the current one {@link Survey#get()}. Stops as well after an answer which doesn't lead to a next
+     * {@link FlowItem} - same as {@link Survey#answerAll(List)}.
+     *
+     * @param answers answers by {@code label}
+     * @return number of applied answers
+     */
+    public int answerAll(final Map<String, ?> answers) {
+        return answerAll(answers, null);
+    }
+
+    /**
+     * Solves {@link FlowItem}s by their {@code label} in one pass starting at the current {@link FlowItem}
+     * Continues as long as there is an answer for the current {@link FlowItem}. The status of the {@link Survey} is
+     * updated once at the end. Stops at the first answer which can't be parsed or was already applied
+     * ({@link ContextExchange#idempotencyKey()}) without recording it - the {@link FlowItem} of this answer is then
+     * the current one {@link Survey#get()}. Stops as well after an answer which doesn't lead to a next
+     * {@link FlowItem} - same as {@link Survey#answerAll(List)}.
+     *
+     * @param answers answers by {@code label}
+     * @param context sets the context on {@link ContextExchange} which is used at {@link FlowItem#parse(ContextExchange)}
+     * @return number of applied answers
+     */
+    public int answerAll(final Map<String, ?> answers, final Object context) {
+        final ContextExchange exchange = contextOf(this, null, context);
+        int applied = 0;
+        int step = SurveyCore.STAYED;
+        while (applied < answers.size() && answers.containsKey(last.label())) {
+            final Object answer = answers.get(last.label());
+            final int result = SurveyCore.answerBatch(state, answer instanceof ContextExchange ce ? ce : exchange.payload(answer));
+            if (result == SurveyCore.NOT_PARSED) {
+                break;
+            }
+            step = result;
+            applied++;
+            if (result == SurveyCore.STAYED) {
+                break;
+            }
+        }
+        SurveyCore.finishBatch(state, step, applied);
+        return applied;
+    }
+
     /**
      * Defines if back transitions are allowed for non configured back conditions
      *
@@ -285,6 +557,59 @@ public class Survey {
         return this;
     }
 
+    /**
+     * Defines if answers are dispatched by a compiled {@link berlin.yuna.survey.model.types.FlowMachine}
+     * Recommended for finished flows only as every modification of the flow requires a new compilation
+     *
+     * @param enable {@code false} on default
+     * @return {@link Survey}
+     */
+    public Survey compiledDispatch(final boolean enable) {
+        compiledDispatch = enable;
+        return this;
+    }
+
+    /**
+     * Defines how many {@link ContextExchange#idempotencyKey()}s are remembered - answers with a remembered key are
+     * ignored. The least recently used keys are dropped first.
+     *
+     * @param size {@code 64} on default, {@code 0} disables the check
+     * @return {@link Survey}
+     */
+    public Survey idempotencyKeys(final int size) {
+        idempotencyKeys = Math.max(0, size);
+        processedKeys = null;
+        return this;
+    }
+
+    /**
+     * Definition how many {@link ContextExchange#idempotencyKey()}s are remembered
+     *
+     * @return {@code 64} on default
+     */
+    public int getIdempotencyKeys() {
+        return idempotencyKeys;
+    }
+
+    /**
+     * Checks if an answer with the given key was already applied
+     *
+     * @param idempotencyKey key of {@link ContextExchange#idempotencyKey()}
+     * @return {@code true} if the key is remembered
+     */
+    public boolean isProcessed(final String idempotencyKey) {
+        return idempotencyKey != null && processedKeys != null && processedKeys.containsKey(idempotencyKey);
+    }
+
+    /**
+     * Definition if answers are dispatched by a compiled {@link berlin.yuna.survey.model.types.FlowMachine}
+     *
+     * @return {@code false} on default
+     */
+    public boolean hasCompiledDispatch() {
+        return compiledDispatch;
+    }
+
     /**
      * Definition if back transitions are allowed for non configured back conditions
      *
@@ -308,7 +633,7 @@ public class Survey {
                 .filter(HistoryItem::isNotAnswered).findFirst()
                 .map(HistoryItem::getLabel)
                 .orElse(historySorted.getLast().getLabel());
-        return flowStart.get(label).orElseThrow(() -> itemNotFoundInHistory(label, flowStart.label()));
+        return flow().get(label).orElseThrow(() -> itemNotFoundInHistory(label, flowStart.label()));
     }
 
     /**
@@ -317,7 +642,7 @@ public class Survey {
      * @return first {@link FlowItem} of the current flow
      */
     private FlowItem<?, ?> findFirst() {
-        return flowStart.get(history.getFirst().getLabel()).orElseThrow(() -> itemNotFound(history.getFirst().getLabel(), flowStart.label()));
+        return flow().get(history.get(0).getLabel()).orElseThrow(() -> itemNotFound(history.get(0).getLabel(), flowStart.label()));
     }
 
     private Stream<HistoryItem> getHistoryAnswered() {
@@ -325,129 +650,181 @@ public class Survey {
     }
 
     private void markAsCurrent(final String label) {
-        final HistoryItem historyItem = getOrCreateAnswer(label);
-        historyItem.setState(CURRENT);
-    }
-
-    private void markAsDraft(final String label) {
-        getOrCreateAnswer(label).setState(DRAFT);
-    }
-
-    private void markAsAnswered(final String label, final ContextExchange context, final boolean upDate) {
-        final HistoryItem historyItem = getOrCreateAnswer(label);
-        if (upDate || historyItem.isNotAnswered()) {
-            historyItem.setCreatedAt(getTime());
-        }
-        historyItem.setState(ANSWERED);
-        historyItem.setAnswer(context.payload());
+        history.setState(getOrCreateAnswer(label), CURRENT);
     }
 
     private HistoryItem getOrCreateAnswer(final String label) {
-        final HistoryItem answer = new HistoryItem(label);
-        final int index = history.indexOf(answer);
-        if (index == -1) {
-            history.add(answer);
-            return answer;
-        }
-        return history.get(index);
+        return history.getOrCreate(flow(), label);
     }
 
     private Survey(final FlowItem<?, ?> startQuestion) {
         assertExists(startQuestion);
         this.last = startQuestion;
+        this.flowStart = startQuestion;
         markAsCurrent(last.label());
-        flowStart = startQuestion;
     }
 
-    private void assertExists(final FlowItem<?, ?> startQuestion) {
+    private static void assertExists(final FlowItem<?, ?> startQuestion) {
         if (startQuestion == null) {
             throw new IllegalArgumentException("Missing " + FlowItem.class.getSimpleName() + ", given was null");
         }
     }
 
 
-    private void runForwardTransitions(final FlowItem<?, ?> target, final Object context) {
-        final Set<String> checkedLabel = new HashSet<>();
-        final Map<String, Object> mappedHistory = getHistoryAnswered().collect(toLinkedMap(HistoryItem::getLabel, HistoryItem::getAnswer));
-        String label = flowStart.label();
-        do {
-            final FlowItem<?, ?> currentQuestion = answer(contextOf(this, mappedHistory.get(label), context, target).put(TRANSITION, false), false).get();
-            label = currentQuestion.label();
-            if (checkedLabel.contains(label)) {
-                //FIXME: custom checked exception
-                throw new IllegalArgumentException(
-                        "Unable transition to [" + target.label() + "] "
-                                + "could not solve [" + label + "] "
-                                + (mappedHistory.containsKey(label)? "by given answer [" + mappedHistory.get(label) + "] "
-                                : "no history item found for this label")
-                );
+    /**
+     * Successor of an answered item taken from the history - conditions are not applied as they might block or have
+     * side effects
+     *
+     * @return id of the forward target which follows the item in the history or {@code -1} if unknown
+     */
+    int knownTarget(final CompiledFlow flow, final int id) {
+        final int index = history.indexOf(flow, id);
+        if (index == -1 || index + 1 >= history.size() || history.get(index).isNotAnswered() || history.get(index).isDraft()) {
+            return -1;
+        }
+        final int next = flow.id(history.get(index + 1).getLabel());
+        for (int i = 0; next != -1 && i < flow.targetCount(id); i++) {
+            if (flow.target(id, i) == next) {
+                return next;
             }
-            checkedLabel.add(label);
-            last = currentQuestion;
-        } while (!label.equals(target.label()));
-        if (mappedHistory.containsKey(target.label())) {
-            answer(contextOf(this, mappedHistory.get(label), context, target).put(TRANSITION, false), false);
         }
+        return -1;
     }
 
-    private boolean runBackTransitions(final FlowItem<?, ?> target, final Object context) {
-        final Iterator<HistoryItem> iterator = new LinkedList<>(history).descendingIterator();
-        while (iterator.hasNext()) {
-            final HistoryItem answer = iterator.next();
-            if (answer.isCurrent()) {
-                history.remove(answer);
-                continue;
-            }
-            if (answer.getLabel().equals(target.label())) {
-                markAsCurrent(answer.getLabel());
-                last = flowStart.getOrElse(answer.getLabel(), last);
-                return true;
-            }
-            final boolean revertIsAllowed = flowStart.get(answer.getLabel())
-                    .flatMap(q -> q.parseAndRevert(contextOf(this, answer.getAnswer(), context, target).put(TRANSITION, true)))
-                    .orElse(autoBackTransition);
-            if (revertIsAllowed) {
-                markAsDraft(answer.getLabel());
-                last = flowStart.getOrElse(answer.getLabel(), last);
-            } else {
-                markAsCurrent(last.label());
-                return false;
+    private Object answerOf(final String label) {
+        final int index = history.indexOf(flow(), label);
+        if (index != -1) {
+            for (int i = index; i < history.size(); i++) {
+                final HistoryItem item = history.get(i);
+                if (item.isAnswered() && label.equals(item.getLabel())) {
+                    return item.getAnswer();
+                }
             }
         }
-        markAsCurrent(last.label());
-        return true;
+        return null;
     }
 
+    /**
+     * Remembers the idempotency key of an applied answer
+     */
+    void remember(final String key) {
+        if (key == null || idempotencyKeys == 0) {
+            return;
+        } else if (processedKeys == null) {
+            final int limit = idempotencyKeys;
+            processedKeys = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<String, Boolean> eldest) {
+                    return size() > limit;
+                }
+            };
+        }
+        processedKeys.put(key, Boolean.TRUE);
+    }
+
+    /**
+     * @return remembered idempotency keys from the oldest to the latest
+     */
+    List<String> processedKeys() {
+        return processedKeys == null ? List.of() : new ArrayList<>(processedKeys.keySet());
+    }
 
-    private Survey answer(final ContextExchange context, final boolean upDate) {
-        final Optional<FlowItem<?, ?>> result = last.parseAndAnswer(context);
-        markAsAnswered(last.label(), context, upDate);
-        if (result.isPresent()) {
-            last = result.get();
-            if (upDate && !isEnded()) {
-                markAsCurrent(last.label());
+    /**
+     * Snapshot of the current flow - rebuilt only after the flow was modified
+     *
+     * @return {@link CompiledFlow} of the current flow
+     */
+    private CompiledFlow flow() {
+        return flowStart.compile();
+    }
+
+    /**
+     * {@link SurveyCore.State} which works directly on the own {@link History}
+     */
+    private final class CoreState implements SurveyCore.State {
+
+        @Override
+        public FlowItem<?, ?> first() {
+            return flowStart;
+        }
+
+        @Override
+        public FlowItem<?, ?> last() {
+            return last;
+        }
+
+        @Override
+        public void last(final FlowItem<?, ?> item) {
+            last = item;
+        }
+
+        @Override
+        public Survey survey() {
+            return Survey.this;
+        }
+
+        @Override
+        public boolean autoBackTransition() {
+            return autoBackTransition;
+        }
+
+        @Override
+        public boolean compiledDispatch() {
+            return compiledDispatch;
+        }
+
+        @Override
+        public HistoryItem item(final String label) {
+            final int index = history.indexOf(flow(), label);
+            return index == -1 ? null : history.get(index);
+        }
+
+        @Override
+        public Object answerOf(final String label) {
+            return Survey.this.answerOf(label);
+        }
+
+        @Override
+        public void answered(final String label, final Object answer, final boolean touch) {
+            final HistoryItem item = getOrCreateAnswer(label);
+            if (touch || item.isNotAnswered()) {
+                item.setCreatedAt(getTime());
             }
+            history.setState(item, ANSWERED);
+            history.setAnswer(item, answer);
         }
-        return this;
-    }
 
-    private void assertQuestionBelongsToFlow(final FlowItem<?, ?> question) {
-        assertExists(question);
-        if (flowStart.get(question.label()).isEmpty()) {
-            throw itemNotFoundInHistory(question.label(), flowStart.label());
+        @Override
+        public void state(final String label, final HistoryItemBase.State state) {
+            history.setState(getOrCreateAnswer(label), state);
+        }
+
+        @Override
+        public void removeCurrent() {
+            if (history.current() != null) {
+                history.remove(flow(), history.current());
+            }
+        }
+
+        @Override
+        public String checkpoint() {
+            final HistoryItem item = history.checkpoint();
+            return item == null ? null : item.getLabel();
+        }
+
+        @Override
+        public boolean isProcessed(final String idempotencyKey) {
+            return Survey.this.isProcessed(idempotencyKey);
         }
-    }
 
-    private static <T, K, U> Collector<T, ?, Map<K, U>> toLinkedMap(
-            final Function<? super T, ? extends K> keyMapper,
-            final Function<? super T, ? extends U> valueMapper) {
-        return Collectors.toMap(
-                keyMapper,
-                valueMapper,
-                (u, v) -> {
-                    throw new IllegalStateException(String.format("Duplicate key %s", u));
-                },
-                LinkedHashMap::new
-        );
+        @Override
+        public void remember(final String idempotencyKey) {
+            Survey.this.remember(idempotencyKey);
+        }
+
+        @Override
+        public void changed() {
+            version++;
+        }
     }
 }
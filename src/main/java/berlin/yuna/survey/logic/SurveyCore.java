@@ -0,0 +1,349 @@
+package berlin.yuna.survey.logic;
+
+import berlin.yuna.survey.model.ContextExchange;
+import berlin.yuna.survey.model.HistoryItem;
+import berlin.yuna.survey.model.HistoryItemBase;
+import berlin.yuna.survey.model.types.CompiledFlow;
+import berlin.yuna.survey.model.types.FlowItem;
+
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+import static berlin.yuna.survey.model.ContextExchange.contextOf;
+import static berlin.yuna.survey.model.HistoryItemBase.State.CURRENT;
+import static berlin.yuna.survey.model.HistoryItemBase.State.DRAFT;
+import static berlin.yuna.survey.model.exception.QuestionNotFoundException.itemNotFoundInHistory;
+
+/**
+ * Transitions of a survey session which are shared by {@link Survey} and {@link PersistentSurvey} - answers,
+ * idempotency keys, versions, compiled dispatch, forward and back transitions. The core only works on a
+ * {@link SurveyCore.State}, the session decides how the state is stored.
+ */
+final class SurveyCore {
+
+    static final int NOT_PARSED = -1;
+    static final int STAYED = 0;
+    static final int MOVED = 1;
+    private static final String TRANSITION = "revert";
+
+    private SurveyCore() {
+    }
+
+    /**
+     * Mutable state of one session - a {@link PersistentSurvey} uses a transient editor
+     */
+    interface State {
+
+        /**
+         * @return first {@link FlowItem} of the flow
+         */
+        FlowItem<?, ?> first();
+
+        /**
+         * @return current {@link FlowItem}
+         */
+        FlowItem<?, ?> last();
+
+        /**
+         * @param item new current {@link FlowItem}
+         */
+        void last(FlowItem<?, ?> item);
+
+        /**
+         * @return {@link Survey} for the {@link ContextExchange} or {@code null}
+         */
+        Survey survey();
+
+        boolean autoBackTransition();
+
+        boolean compiledDispatch();
+
+        /**
+         * @param label label of the item
+         * @return item of the history or {@code null} - must not be modified
+         */
+        HistoryItem item(String label);
+
+        /**
+         * @param label label of the item
+         * @return answer which is used for forward transitions or {@code null}
+         */
+        Object answerOf(String label);
+
+        /**
+         * Stores the answer and sets the item to {@link HistoryItemBase.State#ANSWERED}
+         *
+         * @param label  label of the item
+         * @param answer answer of the item
+         * @param touch  {@code true} updates the creation time even if the item was already answered
+         */
+        void answered(String label, Object answer, boolean touch);
+
+        /**
+         * @param label label of the item - a new item is added if there is none
+         * @param state new state
+         */
+        void state(String label, HistoryItemBase.State state);
+
+        /**
+         * Removes the item in {@link HistoryItemBase.State#CURRENT} from the history
+         */
+        void removeCurrent();
+
+        /**
+         * @return label of the latest answered checkpoint or {@code null}
+         */
+        String checkpoint();
+
+        boolean isProcessed(String idempotencyKey);
+
+        void remember(String idempotencyKey);
+
+        /**
+         * Increases the version
+         */
+        void changed();
+    }
+
+    /**
+     * @param state session
+     * @return snapshot of the current flow
+     */
+    static CompiledFlow flow(final State state) {
+        return state.first().compile();
+    }
+
+    /**
+     * Applies the answer to the current item by {@link FlowItem#parseAndAnswer(ContextExchange)} - answers which
+     * can't be parsed are recorded as well and keep the current item. Answers with an already applied idempotency key
+     * are ignored, the key is only remembered after a parsable answer was applied.
+     *
+     * @return {@code true} if the answer was applied
+     */
+    static boolean answer(final State state, final ContextExchange context) {
+        if (state.isProcessed(context.idempotencyKey())) {
+            return false;
+        }
+        final FlowItem<?, ?> item = state.last();
+        final Optional<FlowItem<?, ?>> result = dispatch(state, item, context);
+        state.changed();
+        answered(state, item, context, result, true);
+        remember(state, item, context);
+        return true;
+    }
+
+    /**
+     * Same as {@link SurveyCore#answer(State, ContextExchange)} without blocking on
+     * {@link berlin.yuna.survey.model.AsyncCondition}s - the state is changed when the routes are resolved
+     *
+     * @return {@code true} if the answer was applied
+     */
+    static CompletableFuture<Boolean> answerAsync(final State state, final ContextExchange context, final Executor executor) {
+        if (executor == null) {
+            throw new IllegalArgumentException("Missing " + Executor.class.getSimpleName() + ", given was null");
+        } else if (state.isProcessed(context.idempotencyKey())) {
+            return CompletableFuture.completedFuture(false);
+        }
+        final FlowItem<?, ?> item = state.last();
+        final CompletableFuture<Optional<FlowItem<?, ?>>> routed = item.parseAndAnswerAsync(context, executor);
+        final Function<Optional<FlowItem<?, ?>>, Boolean> apply = result -> {
+            state.changed();
+            answered(state, item, context, result, true);
+            remember(state, item, context);
+            return true;
+        };
+        return routed.isDone() ? routed.thenApply(apply) : routed.thenApplyAsync(apply, executor);
+    }
+
+    /**
+     * One answer of a batch - the current item is marked once at the end, see {@link SurveyCore#finishBatch(State, int, int)}
+     *
+     * @return {@link SurveyCore#MOVED}, {@link SurveyCore#STAYED} or {@link SurveyCore#NOT_PARSED}
+     */
+    static int answerBatch(final State state, final ContextExchange context) {
+        if (state.isProcessed(context.idempotencyKey())) {
+            return NOT_PARSED;
+        }
+        final Optional<?> parsed = state.last().parse(context);
+        if (parsed.isEmpty()) {
+            return NOT_PARSED;
+        }
+        final FlowItem<?, ?> result = route(state, parsed.get());
+        state.answered(state.last().label(), context.payload(), true);
+        state.remember(context.idempotencyKey());
+        if (result != null) {
+            state.last(result);
+            return MOVED;
+        }
+        return STAYED;
+    }
+
+    static void finishBatch(final State state, final int step, final int applied) {
+        if (applied > 0) {
+            state.changed();
+        }
+        if (step == MOVED && !isEnded(state)) {
+            state.state(state.last().label(), CURRENT);
+        }
+    }
+
+    /**
+     * @return {@code true} if transition is allowed, {@code false} on config of {@link FlowItem#onBack(berlin.yuna.survey.model.Condition[])}
+     */
+    static boolean transitTo(final State state, final FlowItem<?, ?> target, final Object context) {
+        if (target == null || !flow(state).contains(target.label())) {
+            throw itemNotFoundInHistory(target == null ? null : target.label(), state.first().label());
+        } else if (target.equals(state.last())) {
+            return true;
+        }
+        final HistoryItem item = state.item(target.label());
+        if (item != null && item.isNotDraft()) {
+            return runBackTransitions(state, target, context);
+        }
+        runForwardTransitions(state, target, context);
+        return true;
+    }
+
+    /**
+     * @return {@code true} if there is no next {@link FlowItem}
+     */
+    static boolean isEnded(final State state) {
+        final CompiledFlow flow = flow(state);
+        final FlowItem<?, ?> last = state.last();
+        final int id = flow.id(last.label());
+        if (id == -1 ? !last.targets().isEmpty() : flow.targetCount(id) > 0) {
+            return false;
+        }
+        final HistoryItem item = state.item(last.label());
+        return item != null && item.isAnswered() && item.isNotDraft();
+    }
+
+    /**
+     * Continues from the current {@link FlowItem} as the path to it is already solved - only the new segment to the
+     * {@code target} is answered by the given history answers
+     */
+    private static void runForwardTransitions(final State state, final FlowItem<?, ?> target, final Object context) {
+        final Set<String> checkedLabel = new HashSet<>();
+        final ContextExchange exchange = contextOf(state.survey(), null, context, target).put(TRANSITION, false);
+        state.changed();
+        String label = state.last().label();
+        do {
+            replay(state, exchange.payload(state.answerOf(label)));
+            label = state.last().label();
+            if (!checkedLabel.add(label)) {
+                //FIXME: custom checked exception
+                final Object answer = state.answerOf(label);
+                throw new IllegalArgumentException(
+                        "Unable transition to [" + target.label() + "] "
+                                + "could not solve [" + label + "] "
+                                + (answer != null ? "by given answer [" + answer + "] "
+                                : "no history item found for this label")
+                );
+            }
+        } while (!label.equals(target.label()));
+        final Object answer = state.answerOf(label);
+        if (answer != null) {
+            replay(state, exchange.payload(answer));
+        }
+    }
+
+    /**
+     * Pops the checkpoints of the navigation stack until the {@code target} is reached - only the {@code onBack}
+     * conditions of the crossed items are applied. Items which were reverted before a blocked item stay {@code DRAFT},
+     * a transition which is blocked at the first item changes nothing.
+     */
+    private static boolean runBackTransitions(final State state, final FlowItem<?, ?> target, final Object context) {
+        final ContextExchange exchange = contextOf(state.survey(), null, context, target).put(TRANSITION, true);
+        final CompiledFlow flow = flow(state);
+        boolean changed = false;
+        String label;
+        while ((label = state.checkpoint()) != null) {
+            final FlowItem<?, ?> item = flow.get(label).orElse(null);
+            if (label.equals(target.label())) {
+                if (!changed) {
+                    leaveCurrent(state);
+                }
+                state.state(label, CURRENT);
+                state.last(item == null ? state.last() : item);
+                return true;
+            }
+            final boolean revertIsAllowed = item == null ? state.autoBackTransition() : item.parseAndRevert(exchange.payload(state.item(label).getAnswer())).orElse(state.autoBackTransition());
+            if (revertIsAllowed) {
+                if (!changed) {
+                    leaveCurrent(state);
+                    changed = true;
+                }
+                state.state(label, DRAFT);
+                state.last(item == null ? state.last() : item);
+            } else {
+                if (changed) {
+                    state.state(state.last().label(), CURRENT);
+                }
+                return false;
+            }
+        }
+        if (!changed) {
+            leaveCurrent(state);
+        }
+        state.state(state.last().label(), CURRENT);
+        return true;
+    }
+
+    /**
+     * First change of a back transition - the current item is left
+     */
+    private static void leaveCurrent(final State state) {
+        state.changed();
+        state.removeCurrent();
+    }
+
+    /**
+     * Answers the current item with a known answer of the history without version, idempotency key and current mark
+     */
+    private static void replay(final State state, final ContextExchange context) {
+        final FlowItem<?, ?> last = state.last();
+        answered(state, last, context, dispatch(state, last, context), false);
+    }
+
+    private static Optional<FlowItem<?, ?>> dispatch(final State state, final FlowItem<?, ?> item, final ContextExchange context) {
+        return state.compiledDispatch() ? flow(state).machine().parseAndAnswer(item, context) : item.parseAndAnswer(context);
+    }
+
+    /**
+     * Remembers the idempotency key unless the answer couldn't be parsed - a retry with the same key is still applied
+     */
+    private static void remember(final State state, final FlowItem<?, ?> item, final ContextExchange context) {
+        if (context.idempotencyKey() != null && item.parse(context).isPresent()) {
+            state.remember(context.idempotencyKey());
+        }
+    }
+
+    private static void answered(final State state, final FlowItem<?, ?> item, final ContextExchange context, final Optional<FlowItem<?, ?>> result, final boolean upDate) {
+        state.answered(item.label(), context.payload(), upDate);
+        if (result.isPresent()) {
+            state.last(result.get());
+            if (upDate && !isEnded(state)) {
+                state.state(result.get().label(), CURRENT);
+            }
+        }
+    }
+
+    /**
+     * @param parsed parsed answer of the current item
+     * @return next {@link FlowItem} or {@code null} if no route matches
+     */
+    private static FlowItem<?, ?> route(final State state, final Object parsed) {
+        final CompiledFlow flow = state.compiledDispatch() ? flow(state) : null;
+        final int id = flow == null ? -1 : flow.id(state.last().label());
+        return id == -1 ? answerParsed(state.last(), parsed).orElse(null) : flow.machine().next(id, parsed);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Optional<FlowItem<?, ?>> answerParsed(final FlowItem<T, ?> item, final Object answer) {
+        return item.answer((T) answer);
+    }
+}
@@ -0,0 +1,240 @@
+package berlin.yuna.survey.logic;
+
+import berlin.yuna.survey.model.types.FlowItem;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * The {@link SurveyEngine} owns {@link Survey}s by session id and runs every session as an actor with its own
+ * mailbox. Requests of one session are processed one after another in the order they were submitted, requests of
+ * different sessions run in parallel on the {@link Executor}. A session only occupies a thread while its mailbox has
+ * messages - idle sessions cost no threads at all.
+ * The {@link Survey}s must only be accessed through the engine - see {@link SurveyEngine#ask(String, Function)}.
+ * There is no default {@link Executor}: {@link berlin.yuna.survey.model.Condition}s may block (e.g.
+ * {@link berlin.yuna.survey.model.AsyncCondition#apply(Object)} waits up to its timeout) and must not starve the
+ * {@link java.util.concurrent.ForkJoinPool#commonPool()} - use a dedicated pool or a virtual thread per task executor.
+ */
+@SuppressWarnings({"unused", "UnusedReturnValue"})
+public class SurveyEngine {
+
+    private static final int THROUGHPUT = 64;
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final Executor executor;
+
+    /**
+     * @param executor executor to process the mailboxes on e.g. {@link java.util.concurrent.Executors#newVirtualThreadPerTaskExecutor()}
+     */
+    public SurveyEngine(final Executor executor) {
+        if (executor == null) {
+            throw new IllegalArgumentException("Missing " + Executor.class.getSimpleName() + ", given was null");
+        }
+        this.executor = executor;
+    }
+
+    /**
+     * Starts a new session
+     *
+     * @param sessionId id of the session
+     * @param flowStart start item of the flow
+     * @return {@code false} if the session already exists
+     */
+    public boolean start(final String sessionId, final FlowItem<?, ?> flowStart) {
+        return start(sessionId, Survey.init(flowStart));
+    }
+
+    /**
+     * Adds an existing {@link Survey} as session - the {@link Survey} must not be used outside the engine anymore
+     *
+     * @param sessionId id of the session
+     * @param survey    {@link Survey} of the session
+     * @return {@code false} if the session already exists
+     */
+    public boolean start(final String sessionId, final Survey survey) {
+        return sessions.putIfAbsent(sessionId, new Session(survey, executor)) == null;
+    }
+
+    /**
+     * Solves the current {@link FlowItem} of the session
+     *
+     * @param sessionId id of the session
+     * @param answer    answer to solve the current {@link FlowItem}
+     * @return current {@link FlowItem} after the answer
+     */
+    public CompletableFuture<FlowItem<?, ?>> answer(final String sessionId, final Object answer) {
+        return answer(sessionId, answer, null);
+    }
+
+    /**
+     * Solves the current {@link FlowItem} of the session
+     *
+     * @param sessionId id of the session
+     * @param answer    answer to solve the current {@link FlowItem}
+     * @param context   sets the context on {@link berlin.yuna.survey.model.ContextExchange}
+     * @return current {@link FlowItem} after the answer
+     */
+    public CompletableFuture<FlowItem<?, ?>> answer(final String sessionId, final Object answer, final Object context) {
+        return ask(sessionId, survey -> survey.answer(answer, context).get());
+    }
+
+    /**
+     * Transit to a specific {@link FlowItem} in the flow of the session
+     *
+     * @param sessionId id of the session
+     * @param label     for {@link FlowItem} to transition to
+     * @return result of {@link Survey#transitTo(String)}
+     */
+    public CompletableFuture<Boolean> transitTo(final String sessionId, final String label) {
+        return ask(sessionId, survey -> survey.transitTo(label));
+    }
+
+    /**
+     * Runs a function in the mailbox of the session - the function has exclusive access to the {@link Survey} and
+     * must not keep a reference of it
+     *
+     * @param sessionId id of the session
+     * @param function  function to run on the {@link Survey}
+     * @param <T>       type of the result
+     * @return result of the function - fails with {@link IllegalArgumentException} if the session doesn't exist
+     */
+    public <T> CompletableFuture<T> ask(final String sessionId, final Function<Survey, T> function) {
+        final Session session = sessions.get(sessionId);
+        if (session == null) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Unknown session [" + sessionId + "]"));
+        }
+        return session.tell(function);
+    }
+
+    /**
+     * Removes a session after all pending requests of the session are processed - later requests of the session fail
+     * with {@link IllegalStateException}
+     *
+     * @param sessionId id of the session
+     * @return {@link Survey} of the session or {@link Optional#empty()} if the session doesn't exist
+     */
+    public CompletableFuture<Optional<Survey>> stop(final String sessionId) {
+        final Session session = sessions.get(sessionId);
+        if (session == null) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        return session.close(() -> sessions.remove(sessionId, session));
+    }
+
+    /**
+     * @param sessionId id of the session
+     * @return {@code true} if the session exists
+     */
+    public boolean contains(final String sessionId) {
+        return sessions.containsKey(sessionId);
+    }
+
+    /**
+     * @return number of sessions
+     */
+    public int size() {
+        return sessions.size();
+    }
+
+    /**
+     * Actor of one session - the {@code scheduled} flag guarantees that only one thread drains the mailbox.
+     * The {@code closed} flag is only written in the mailbox, so no request runs after the stop message.
+     */
+    private static final class Session implements Runnable {
+
+        private final Survey survey;
+        private final Executor executor;
+        private final Queue<Runnable> mailbox = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean(false);
+        private volatile boolean closed;
+
+        private Session(final Survey survey, final Executor executor) {
+            this.survey = survey;
+            this.executor = executor;
+        }
+
+        private <T> CompletableFuture<T> tell(final Function<Survey, T> function) {
+            if (closed) {
+                return CompletableFuture.failedFuture(stopped());
+            }
+            return enqueue(s -> {
+                if (closed) {
+                    throw stopped();
+                }
+                return function.apply(s);
+            });
+        }
+
+        private CompletableFuture<Optional<Survey>> close(final Runnable onClose) {
+            return enqueue(s -> {
+                if (closed) {
+                    return Optional.empty();
+                }
+                closed = true;
+                onClose.run();
+                return Optional.of(s);
+            });
+        }
+
+        private static IllegalStateException stopped() {
+            return new IllegalStateException("Session is stopped");
+        }
+
+        private <T> CompletableFuture<T> enqueue(final Function<Survey, T> function) {
+            final CompletableFuture<T> result = new CompletableFuture<>();
+            final Runnable message = () -> {
+                try {
+                    result.complete(function.apply(survey));
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            };
+            mailbox.add(message);
+            try {
+                schedule();
+            } catch (RejectedExecutionException e) {
+                if (mailbox.remove(message)) {
+                    result.completeExceptionally(e);
+                }
+            }
+            return result;
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this);
+                } catch (RejectedExecutionException e) {
+                    scheduled.set(false);
+                    throw e;
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                Runnable message;
+                for (int i = 0; i < THROUGHPUT && (message = mailbox.poll()) != null; i++) {
+                    message.run();
+                }
+            } finally {
+                scheduled.set(false);
+            }
+            if (!mailbox.isEmpty()) {
+                try {
+                    schedule();
+                } catch (RejectedExecutionException ignored) {
+                    // executor is shut down - the next request reschedules the mailbox
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package berlin.yuna.survey.logic;
+
+import berlin.yuna.survey.model.HistoryItemBase;
+import berlin.yuna.survey.model.RehydrationReport;
+import berlin.yuna.survey.model.types.FlowItem;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * The {@link SurveyRehydrator} rebuilds many {@link Survey}s from persisted histories in parallel - see
+ * {@link Survey#init(FlowItem, Iterable)}. All sessions share the compiled flow and the JSON reader
+ * {@link berlin.yuna.survey.config.SurveyDefaults#surveyReader()}. The number of histories in flight is bounded by
+ * the {@code parallelism}, so the stream of histories is never buffered completely.
+ * The flow must not be modified during the rehydration - see {@link FlowItem#freeze()}.
+ */
+@SuppressWarnings({"unused", "UnusedReturnValue"})
+public class SurveyRehydrator {
+
+    private final FlowItem<?, ?> flow;
+    private Executor executor = ForkJoinPool.commonPool();
+    private int parallelism;
+    private BiConsumer<Iterable<? extends HistoryItemBase<?>>, Throwable> onError = (history, error) -> {};
+
+    /**
+     * @param flow start item of the flow
+     * @return {@link SurveyRehydrator}
+     */
+    public static SurveyRehydrator of(final FlowItem<?, ?> flow) {
+        return new SurveyRehydrator(flow);
+    }
+
+    public SurveyRehydrator(final FlowItem<?, ?> flow) {
+        if (flow == null) {
+            throw new IllegalArgumentException("Missing " + FlowItem.class.getSimpleName() + ", given was null");
+        }
+        this.flow = flow;
+    }
+
+    /**
+     * @param executor executor to run the rehydration on - {@link ForkJoinPool#commonPool()} on default
+     * @return {@link SurveyRehydrator}
+     */
+    public SurveyRehydrator executor(final Executor executor) {
+        if (executor == null) {
+            throw new IllegalArgumentException("Missing " + Executor.class.getSimpleName() + ", given was null");
+        }
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * @param parallelism max number of histories in flight - parallelism of the {@link ForkJoinPool} executor or the
+     *                    {@link ForkJoinPool#commonPool()} on default
+     * @return {@link SurveyRehydrator}
+     */
+    public SurveyRehydrator parallelism(final int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+        return this;
+    }
+
+    /**
+     * @param onError called for every history which could not be rehydrated
+     * @return {@link SurveyRehydrator}
+     */
+    public SurveyRehydrator onError(final BiConsumer<Iterable<? extends HistoryItemBase<?>>, Throwable> onError) {
+        this.onError = onError;
+        return this;
+    }
+
+    /**
+     * Rehydrates all histories - blocks until all histories are processed
+     *
+     * @param histories persisted histories
+     * @param consumer  receives the rehydrated {@link Survey}s - called concurrently
+     * @return {@link RehydrationReport}
+     */
+    public RehydrationReport rehydrate(final Stream<? extends Iterable<? extends HistoryItemBase<?>>> histories, final Consumer<Survey> consumer) {
+        flow.compile();
+        final long start = System.nanoTime();
+        final LongAdder succeeded = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final int permitCount = parallelism();
+        final Semaphore permits = new Semaphore(permitCount);
+        try {
+            histories.forEach(history -> {
+                permits.acquireUninterruptibly();
+                try {
+                    executor.execute(() -> {
+                        try {
+                            consumer.accept(Survey.init(flow, history));
+                            succeeded.increment();
+                        } catch (Throwable e) {
+                            failed.increment();
+                            onError.accept(history, e);
+                        } finally {
+                            permits.release();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    permits.release();
+                    failed.increment();
+                    onError.accept(history, e);
+                }
+            });
+        } finally {
+            permits.acquireUninterruptibly(permitCount);
+            permits.release(permitCount);
+        }
+        return new RehydrationReport(succeeded.sum(), failed.sum(), Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    /**
+     * @return configured parallelism or the parallelism of the executor - independent of the order of the setters
+     */
+    private int parallelism() {
+        if (parallelism > 0) {
+            return parallelism;
+        }
+        return executor instanceof ForkJoinPool pool ? pool.getParallelism() : ForkJoinPool.commonPool().getParallelism();
+    }
+}
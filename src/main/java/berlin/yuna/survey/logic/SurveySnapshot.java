@@ -0,0 +1,249 @@
+package berlin.yuna.survey.logic;
+
+import berlin.yuna.survey.config.SurveyDefaults;
+import berlin.yuna.survey.model.HistoryItem;
+import berlin.yuna.survey.model.HistoryItemBase;
+import berlin.yuna.survey.model.types.CompiledFlow;
+import berlin.yuna.survey.model.types.FlowItem;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static berlin.yuna.survey.config.SurveyDefaults.snapshotType;
+import static berlin.yuna.survey.config.SurveyDefaults.surveyMapper;
+import static berlin.yuna.survey.config.SurveyDefaults.surveyReader;
+import static berlin.yuna.survey.model.exception.QuestionNotFoundException.itemNotFound;
+
+/**
+ * Binary image of a {@link Survey} - see {@link Survey#snapshot()} and {@link Survey#restore(byte[], FlowItem)}
+ * <pre>
+ * format    byte
+ * flow      utf      label of the first item
+ * options   byte     auto back transition, compiled dispatch
+ * version   long     version of the survey
+ * flow hash long     fingerprint of labels, types and routes of the flow - see {@link CompiledFlow#fingerprint()}
+ * labels    int      number of labels followed by one utf per label
+ * current   int      label index of the current item
+ * history   int      number of items followed by: label index (int), state (byte), created at (long, int), answer
+ * answer    byte     type followed by the typed value - other types than string, boolean, int, long and double are stored
+ *                    as class name and json if allowed by {@link SurveyDefaults#snapshotType(Class)}, else as plain json
+ * </pre>
+ * Restoring into a flow with a different fingerprint or from another format fails. Class names of the snapshot are only
+ * resolved by {@link SurveyDefaults#snapshotType(String)} - a snapshot can't create any other type.
+ */
+final class SurveySnapshot {
+
+    private static final byte FORMAT = 3;
+    private static final byte OPTION_AUTO_BACK = 1;
+    private static final byte OPTION_COMPILED = 2;
+    private static final byte TYPE_NULL = 0;
+    private static final byte TYPE_STRING = 1;
+    private static final byte TYPE_BOOLEAN = 2;
+    private static final byte TYPE_INT = 3;
+    private static final byte TYPE_LONG = 4;
+    private static final byte TYPE_DOUBLE = 5;
+    private static final byte TYPE_JSON = 6;
+    private static final byte TYPE_TYPED_JSON = 7;
+    private static final HistoryItemBase.State[] STATES = HistoryItemBase.State.values();
+
+    private SurveySnapshot() {
+    }
+
+    static byte[] write(final Survey survey) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + survey.getHistorySize() * 32);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT);
+            out.writeUTF(survey.getFirst().label());
+            out.writeByte((survey.hasAutoBackTransition() ? OPTION_AUTO_BACK : 0) | (survey.hasCompiledDispatch() ? OPTION_COMPILED : 0));
+            out.writeLong(survey.getVersion());
+            out.writeLong(survey.getFirst().compile().fingerprint());
+            final List<HistoryItem> history = survey.history();
+            final Map<String, Integer> labels = new HashMap<>();
+            final List<String> table = new ArrayList<>();
+            labelOf(labels, table, survey.get().label());
+            for (HistoryItem item : history) {
+                labelOf(labels, table, item.getLabel());
+            }
+            out.writeInt(table.size());
+            for (String label : table) {
+                out.writeUTF(label);
+            }
+            out.writeInt(labels.get(survey.get().label()));
+            out.writeInt(history.size());
+            for (HistoryItem item : history) {
+                out.writeInt(labels.get(item.getLabel()));
+                out.writeByte(item.getState().ordinal());
+                writeTime(out, item.getCreatedAt());
+                writeAnswer(out, item.getAnswer());
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to write snapshot of [" + survey.getFirst().label() + "]", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static Survey read(final byte[] snapshot, final FlowItem<?, ?> flowStart) {
+        final CompiledFlow flow = flowStart.compile();
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(snapshot))) {
+            final byte format = in.readByte();
+            if (format != FORMAT) {
+                throw new IllegalArgumentException("Unsupported snapshot format [" + format + "]");
+            }
+            final FlowItem<?, ?> first = resolve(flow, in.readUTF());
+            final byte options = in.readByte();
+            final long version = in.readLong();
+            if (in.readLong() != flow.fingerprint()) {
+                throw new IllegalArgumentException("Snapshot doesn't match the flow [" + flowStart.label() + "] - the flow was changed");
+            }
+            final FlowItem<?, ?>[] table = new FlowItem<?, ?>[readSize(in, 2)];
+            for (int i = 0; i < table.length; i++) {
+                table[i] = resolve(flow, in.readUTF());
+            }
+            final FlowItem<?, ?> current = table[in.readInt()];
+            final int size = readSize(in, 7);
+            final List<HistoryItem> history = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                final String label = table[in.readInt()].label();
+                final HistoryItemBase.State state = STATES[in.readByte()];
+                final LocalDateTime createdAt = readTime(in);
+                history.add(new HistoryItem(label, readAnswer(in), createdAt, state));
+            }
+            return Survey.restore(first, current, history, version)
+                    .autoBackTransition((options & OPTION_AUTO_BACK) != 0)
+                    .compiledDispatch((options & OPTION_COMPILED) != 0);
+        } catch (IOException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+            throw new IllegalArgumentException("Invalid snapshot for flow [" + flowStart.label() + "]", e);
+        }
+    }
+
+    private static FlowItem<?, ?> resolve(final CompiledFlow flow, final String label) {
+        return flow.get(label).orElseThrow(() -> itemNotFound(label, flow.first().label()));
+    }
+
+    private static void labelOf(final Map<String, Integer> labels, final List<String> table, final String label) {
+        if (labels.putIfAbsent(label, table.size()) == null) {
+            table.add(label);
+        }
+    }
+
+    private static void writeTime(final DataOutputStream out, final LocalDateTime time) throws IOException {
+        out.writeBoolean(time != null);
+        if (time != null) {
+            out.writeLong(time.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(time.getNano());
+        }
+    }
+
+    private static LocalDateTime readTime(final DataInputStream in) throws IOException {
+        return in.readBoolean() ? LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC) : null;
+    }
+
+    private static void writeAnswer(final DataOutputStream out, final Object answer) throws IOException {
+        if (answer == null) {
+            out.writeByte(TYPE_NULL);
+        } else if (answer instanceof String value) {
+            out.writeByte(TYPE_STRING);
+            writeString(out, value);
+        } else if (answer instanceof Boolean value) {
+            out.writeByte(TYPE_BOOLEAN);
+            out.writeBoolean(value);
+        } else if (answer instanceof Integer value) {
+            out.writeByte(TYPE_INT);
+            out.writeInt(value);
+        } else if (answer instanceof Long value) {
+            out.writeByte(TYPE_LONG);
+            out.writeLong(value);
+        } else if (answer instanceof Double value) {
+            out.writeByte(TYPE_DOUBLE);
+            out.writeDouble(value);
+        } else if (snapshotType(typeOf(answer).getName()) == typeOf(answer)) {
+            out.writeByte(TYPE_TYPED_JSON);
+            writeString(out, typeOf(answer).getName());
+            writeString(out, surveyMapper().writeValueAsString(answer));
+        } else {
+            out.writeByte(TYPE_JSON);
+            writeString(out, surveyMapper().writeValueAsString(answer));
+        }
+    }
+
+    private static Object readAnswer(final DataInputStream in) throws IOException {
+        final byte type = in.readByte();
+        return switch (type) {
+            case TYPE_NULL -> null;
+            case TYPE_STRING -> readString(in);
+            case TYPE_BOOLEAN -> in.readBoolean();
+            case TYPE_INT -> in.readInt();
+            case TYPE_LONG -> in.readLong();
+            case TYPE_DOUBLE -> in.readDouble();
+            case TYPE_JSON -> surveyReader().readValue(readString(in));
+            case TYPE_TYPED_JSON -> readTyped(in);
+            default -> throw new IOException("Unknown answer type [" + type + "]");
+        };
+    }
+
+    private static void writeString(final DataOutputStream out, final String value) throws IOException {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(final DataInputStream in) throws IOException {
+        final byte[] bytes = new byte[readSize(in, 1)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param in       input of the snapshot
+     * @param minBytes minimal number of bytes of one element
+     * @return number of elements - rejects sizes which don't fit into the remaining input
+     */
+    private static int readSize(final DataInputStream in, final int minBytes) throws IOException {
+        final int size = in.readInt();
+        if (size < 0 || size > in.available() / minBytes) {
+            throw new IOException("Size [" + size + "] exceeds the remaining [" + in.available() + "] bytes");
+        }
+        return size;
+    }
+
+    private static Object readTyped(final DataInputStream in) throws IOException {
+        final String type = readString(in);
+        final String json = readString(in);
+        final Class<?> result = snapshotType(type);
+        if (result == null) {
+            throw new IOException("Unsupported answer type [" + type + "]");
+        }
+        return surveyMapper().readValue(json, result);
+    }
+
+    /**
+     * @param answer answer to store as json
+     * @return type which restores the answer - collections and maps are restored as their mutable default
+     */
+    private static Class<?> typeOf(final Object answer) {
+        if (answer instanceof List) {
+            return ArrayList.class;
+        } else if (answer instanceof Set) {
+            return LinkedHashSet.class;
+        } else if (answer instanceof Collection) {
+            return ArrayList.class;
+        } else if (answer instanceof Map) {
+            return LinkedHashMap.class;
+        }
+        return answer.getClass();
+    }
+}
@@ -0,0 +1,131 @@
+package berlin.yuna.survey.model;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * {@link Condition} which is resolved asynchronously e.g. by a remote service. The result is limited by a
+ * {@code timeout} - on timeout or failure the {@code fallback} result is used. A {@code fallback} of {@code false}
+ * continues with the next routes and finally with the default route of the {@link berlin.yuna.survey.model.types.FlowItem}.
+ * Use {@link berlin.yuna.survey.model.types.FlowItem#answerAsync(Object)} to evaluate the routes without blocking -
+ * {@link AsyncCondition#apply(Object)} blocks until the result or the timeout.
+ *
+ * @param <T> answer type should be the same as the {@link berlin.yuna.survey.model.types.FlowItem} type
+ */
+@SuppressWarnings({"unused", "UnusedReturnValue"})
+public abstract class AsyncCondition<T> extends Condition<T> {
+
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(1);
+    private final Duration timeout;
+    private final boolean fallback;
+
+    /**
+     * Constructor without label, {@link AsyncCondition#DEFAULT_TIMEOUT} and {@code false} as fallback
+     */
+    public AsyncCondition() {
+        this(null);
+    }
+
+    /**
+     * Constructor with label, {@link AsyncCondition#DEFAULT_TIMEOUT} and {@code false} as fallback
+     *
+     * @param label (optional) used for render diagrams {@link berlin.yuna.survey.logic.DiagramExporter}
+     */
+    public AsyncCondition(final String label) {
+        this(label, DEFAULT_TIMEOUT, false);
+    }
+
+    /**
+     * @param label    (optional) used for render diagrams {@link berlin.yuna.survey.logic.DiagramExporter}
+     * @param timeout  max time to wait for the result
+     * @param fallback result on timeout or failure
+     */
+    public AsyncCondition(final String label, final Duration timeout, final boolean fallback) {
+        super(label);
+        this.timeout = timeout == null ? DEFAULT_TIMEOUT : timeout;
+        this.fallback = fallback;
+    }
+
+    /**
+     * Creates an {@link AsyncCondition} from a function
+     *
+     * @param label    (optional) used for render diagrams {@link berlin.yuna.survey.logic.DiagramExporter}
+     * @param timeout  max time to wait for the result
+     * @param fallback result on timeout or failure
+     * @param function asynchronous condition - see {@link berlin.yuna.survey.logic.Bulkhead#supply(java.util.function.Supplier)}
+     * @param <T>      answer type
+     * @return {@link AsyncCondition}
+     */
+    public static <T> AsyncCondition<T> of(final String label, final Duration timeout, final boolean fallback, final Function<T, CompletableFuture<Boolean>> function) {
+        return new FunctionCondition<>(label, timeout, fallback, function);
+    }
+
+    /**
+     * Specifies what happens on the transition with the given answer - must not block
+     *
+     * @param answer passed for optional usage
+     * @return {@code true} if transition is allowed else {@code false}
+     */
+    public abstract CompletableFuture<Boolean> applyAsync(final T answer);
+
+    /**
+     * Result of {@link AsyncCondition#applyAsync(Object)} limited by the timeout
+     *
+     * @param answer passed for optional usage
+     * @return {@code true} if transition is allowed, the {@code fallback} on timeout or failure
+     */
+    public CompletableFuture<Boolean> evaluate(final T answer) {
+        final CompletableFuture<Boolean> result;
+        try {
+            result = applyAsync(answer);
+        } catch (RuntimeException e) {
+            return CompletableFuture.completedFuture(fallback);
+        }
+        return result == null ? CompletableFuture.completedFuture(fallback) : result.copy()
+                .completeOnTimeout(fallback, timeout.toNanos(), TimeUnit.NANOSECONDS)
+                .exceptionally(error -> fallback)
+                .thenApply(allowed -> allowed == null ? fallback : allowed);
+    }
+
+    /**
+     * Blocks until the result or the timeout - see {@link AsyncCondition#evaluate(Object)}
+     *
+     * @param answer passed for optional usage
+     * @return {@code true} if transition is allowed, the {@code fallback} on timeout or failure
+     */
+    @Override
+    public boolean apply(final T answer) {
+        return evaluate(answer).join();
+    }
+
+    /**
+     * @return max time to wait for the result
+     */
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * @return result on timeout or failure
+     */
+    public boolean getFallback() {
+        return fallback;
+    }
+
+    private static final class FunctionCondition<T> extends AsyncCondition<T> {
+
+        private final Function<T, CompletableFuture<Boolean>> function;
+
+        private FunctionCondition(final String label, final Duration timeout, final boolean fallback, final Function<T, CompletableFuture<Boolean>> function) {
+            super(label, timeout, fallback);
+            this.function = function;
+        }
+
+        @Override
+        public CompletableFuture<Boolean> applyAsync(final T answer) {
+            return function.apply(answer);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package berlin.yuna.survey.model;
 
+import berlin.yuna.survey.config.SurveyDefaults;
 import berlin.yuna.survey.logic.Survey;
 import berlin.yuna.survey.model.types.FlowItem;
 
@@ -17,10 +18,11 @@ public class ContextExchange {
     private Object context;
     private Survey survey;
     private FlowItem<?, ?> target;
-    private final UUID id = UUID.randomUUID();
-    private final Object payload;
+    private UUID id;
+    private String idempotencyKey;
+    private Object payload;
     private final LocalDateTime dateTime = getTime();
-    private final Map<String, Object> metaData = new HashMap<>();
+    private Map<String, Object> metaData;
 
     public static ContextExchange contextOf(final Survey survey, final Object payload, final Object context, final FlowItem<?, ?> target) {
         return contextOf(survey, payload, context).target(target);
@@ -55,25 +57,63 @@ public class ContextExchange {
         return castTo(payload, type);
     }
 
+    /**
+     * Replaces the payload - allows to reuse the exchange for multiple answers
+     *
+     * @param payload new payload
+     * @return {@link ContextExchange}
+     */
+    public ContextExchange payload(final Object payload) {
+        this.payload = payload;
+        return this;
+    }
+
+    /**
+     * @return id of the exchange - created on first access by {@link SurveyDefaults#idSource()}
+     */
     public UUID id() {
+        if (id == null) {
+            id = SurveyDefaults.idSource().next();
+        }
         return id;
     }
 
+    /**
+     * @return client supplied key which identifies retries of the same request or {@code null}
+     */
+    public String idempotencyKey() {
+        return idempotencyKey;
+    }
+
+    /**
+     * Marks the exchange as idempotent - a {@link Survey} applies an answer only once per key
+     *
+     * @param idempotencyKey client supplied key of the request
+     * @return {@link ContextExchange}
+     */
+    public ContextExchange idempotencyKey(final String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+        return this;
+    }
+
     public LocalDateTime dateTime() {
         return dateTime;
     }
 
     public Map<String, Object> metaData() {
+        if (metaData == null) {
+            metaData = new HashMap<>();
+        }
         return metaData;
     }
 
     public ContextExchange put(final String key, final Object value) {
-        metaData.put(key, value);
+        metaData().put(key, value);
         return this;
     }
 
     public <T> Optional<T> get(final String key, final Class<T> type) {
-        return castTo(metaData.get(key), type);
+        return castTo(metaData == null ? null : metaData.get(key), type);
     }
 
     public FlowItem<?, ?> current() {
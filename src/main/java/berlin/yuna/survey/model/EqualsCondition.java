@@ -0,0 +1,36 @@
+package berlin.yuna.survey.model;
+
+import java.util.Objects;
+
+/**
+ * {@link EqualsCondition} matches if the answer equals the configured value.
+ * Routes with this condition are indexed by their value - see {@link berlin.yuna.survey.model.types.TransitionSet}
+ *
+ * @param <T> answer type should be the same as the {@link berlin.yuna.survey.model.types.FlowItem} type
+ */
+@SuppressWarnings({"unused", "UnusedReturnValue"})
+public final class EqualsCondition<T> extends Condition<T> {
+
+    private final T value;
+
+    public static <T> EqualsCondition<T> of(final T value) {
+        return new EqualsCondition<>(value);
+    }
+
+    public EqualsCondition(final T value) {
+        super("= " + value);
+        this.value = value;
+    }
+
+    /**
+     * @return value to match
+     */
+    public T value() {
+        return value;
+    }
+
+    @Override
+    public boolean apply(final T answer) {
+        return Objects.equals(value, answer);
+    }
+}
@@ -0,0 +1,80 @@
+package berlin.yuna.survey.model;
+
+import berlin.yuna.survey.model.types.FlowItem;
+
+/**
+ * Result of a complete submission - see {@link berlin.yuna.survey.logic.FlowEvaluator}
+ */
+@SuppressWarnings({"unused", "UnusedReturnValue"})
+public final class Evaluation {
+
+    private final Status status;
+    private final FlowItem<?, ?> last;
+    private final int steps;
+
+    public Evaluation(final Status status, final FlowItem<?, ?> last, final int steps) {
+        this.status = status;
+        this.last = last;
+        this.steps = steps;
+    }
+
+    /**
+     * @return {@link Status} of the submission
+     */
+    public Status status() {
+        return status;
+    }
+
+    /**
+     * @return end of the flow on {@link Status#COMPLETED} - otherwise the {@link FlowItem} where the evaluation stopped
+     */
+    public FlowItem<?, ?> last() {
+        return last;
+    }
+
+    /**
+     * @return number of answered {@link FlowItem}s
+     */
+    public int steps() {
+        return steps;
+    }
+
+    /**
+     * @return {@code true} if the submission reached and answered the end of the flow
+     */
+    public boolean isCompleted() {
+        return status == Status.COMPLETED;
+    }
+
+    @Override
+    public String toString() {
+        return "Evaluation{" +
+                "status=" + status +
+                ", last=" + last.label() +
+                ", steps=" + steps +
+                '}';
+    }
+
+    public enum Status {
+        /**
+         * the end of the flow was reached and answered
+         */
+        COMPLETED,
+        /**
+         * no answer for {@link Evaluation#last()}
+         */
+        MISSING_ANSWER,
+        /**
+         * the answer for {@link Evaluation#last()} can't be parsed
+         */
+        INVALID_ANSWER,
+        /**
+         * no route of {@link Evaluation#last()} matches its answer
+         */
+        NO_ROUTE,
+        /**
+         * the answers lead back to {@link Evaluation#last()} and would never end
+         */
+        CYCLE,
+    }
+}
@@ -0,0 +1,68 @@
+package berlin.yuna.survey.model;
+
+import berlin.yuna.survey.model.types.FlowItem;
+
+import java.util.List;
+
+/**
+ * Reachable end of a flow - see {@link berlin.yuna.survey.logic.FlowSimulator}
+ */
+@SuppressWarnings({"unused", "UnusedReturnValue"})
+public final class FlowOutcome {
+
+    public static final int UNBOUNDED = -1;
+    private final FlowItem<?, ?> end;
+    private final List<FlowItem<?, ?>> shortestPath;
+    private final int maxSteps;
+
+    public FlowOutcome(final FlowItem<?, ?> end, final List<FlowItem<?, ?>> shortestPath, final int maxSteps) {
+        this.end = end;
+        this.shortestPath = List.copyOf(shortestPath);
+        this.maxSteps = maxSteps;
+    }
+
+    /**
+     * @return {@link FlowItem} without forward targets
+     */
+    public FlowItem<?, ?> end() {
+        return end;
+    }
+
+    /**
+     * @return shortest path from the start of the simulation to the {@link FlowOutcome#end()} - both included
+     */
+    public List<FlowItem<?, ?>> shortestPath() {
+        return shortestPath;
+    }
+
+    /**
+     * @return minimal number of items to answer until the end is reached - including the start and the end
+     */
+    public int minSteps() {
+        return shortestPath.size();
+    }
+
+    /**
+     * @return maximal number of items to answer until the end is reached or {@link FlowOutcome#UNBOUNDED} if a
+     * cycle can be taken on the way
+     */
+    public int maxSteps() {
+        return maxSteps;
+    }
+
+    /**
+     * @return {@code false} if a cycle can be taken on the way to the end
+     */
+    public boolean isBounded() {
+        return maxSteps != UNBOUNDED;
+    }
+
+    @Override
+    public String toString() {
+        return "FlowOutcome{" +
+                "end=" + end.label() +
+                ", minSteps=" + minSteps() +
+                ", maxSteps=" + (isBounded() ? String.valueOf(maxSteps) : "unbounded") +
+                '}';
+    }
+}
@@ -0,0 +1,80 @@
+package berlin.yuna.survey.model;
+
+/**
+ * Statistics of a flow which is registered in a {@link berlin.yuna.survey.logic.FlowRegistry}
+ */
+@SuppressWarnings({"unused", "UnusedReturnValue"})
+public final class FlowStats {
+
+    private final String name;
+    private final String version;
+    private final int nodes;
+    private final int routes;
+    private final long estimatedBytes;
+    private final long sessionsStarted;
+
+    public FlowStats(final String name, final String version, final int nodes, final int routes, final long estimatedBytes, final long sessionsStarted) {
+        this.name = name;
+        this.version = version;
+        this.nodes = nodes;
+        this.routes = routes;
+        this.estimatedBytes = estimatedBytes;
+        this.sessionsStarted = sessionsStarted;
+    }
+
+    /**
+     * @return name of the flow
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     * @return version of the flow
+     */
+    public String version() {
+        return version;
+    }
+
+    /**
+     * @return number of {@link berlin.yuna.survey.model.types.FlowItem}s in the flow
+     */
+    public int nodes() {
+        return nodes;
+    }
+
+    /**
+     * @return number of {@link Route}s in the flow
+     */
+    public int routes() {
+        return routes;
+    }
+
+    /**
+     * @return rough estimation of the heap size of the flow in bytes
+     */
+    public long estimatedBytes() {
+        return estimatedBytes;
+    }
+
+    /**
+     * Sessions are counted when they are started by the registry - finished sessions are not subtracted
+     *
+     * @return number of sessions which were started with the flow
+     */
+    public long sessionsStarted() {
+        return sessionsStarted;
+    }
+
+    @Override
+    public String toString() {
+        return "FlowStats{" +
+                "name='" + name + '\'' +
+                ", version='" + version + '\'' +
+                ", nodes=" + nodes +
+                ", routes=" + routes +
+                ", estimatedBytes=" + estimatedBytes +
+                ", sessionsStarted=" + sessionsStarted +
+                '}';
+    }
+}
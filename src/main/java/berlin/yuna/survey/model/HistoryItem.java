@@ -1,7 +1,9 @@
 package berlin.yuna.survey.model;
 
+import berlin.yuna.survey.model.types.CompiledFlow;
 import berlin.yuna.survey.model.types.FlowItem;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 @SuppressWarnings({"unused", "UnusedReturnValue"})
@@ -19,8 +21,16 @@ public class HistoryItem extends HistoryItemBase<Object> {
         super(item.getLabel(), answer, item.getCreatedAt(), item.getState());
     }
 
+    public HistoryItem(final String label, final Object answer, final LocalDateTime createdAt, final State state) {
+        super(label, answer, createdAt, state);
+    }
+
     public static Optional<HistoryItem> of(final FlowItem<?, ?> flowStart, final HistoryItemBase<?> item) {
-        return flowStart.get(item.getLabel()).stream().findAny().map(flowItem -> {
+        return of(flowStart.compile(), item);
+    }
+
+    public static Optional<HistoryItem> of(final CompiledFlow flow, final HistoryItemBase<?> item) {
+        return flow.get(item.getLabel()).map(flowItem -> {
             if (item instanceof HistoryItem historyItem) {
                 return historyItem;
             } else if (item.getAnswer() instanceof String str) {
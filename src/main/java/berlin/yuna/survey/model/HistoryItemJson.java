@@ -1,5 +1,6 @@
 package berlin.yuna.survey.model;
 
+import berlin.yuna.survey.model.types.CompiledFlow;
 import berlin.yuna.survey.model.types.FlowItem;
 
 import java.util.Optional;
@@ -20,7 +21,11 @@ public class HistoryItemJson extends HistoryItemBase<String> {
     }
 
     public static Optional<HistoryItemJson> of(final FlowItem<?, ?> flowStart, final HistoryItemBase<?> item) {
-        return flowStart.get(item.getLabel()).stream().findAny().map(flowItem -> {
+        return of(flowStart.compile(), item);
+    }
+
+    public static Optional<HistoryItemJson> of(final CompiledFlow flow, final HistoryItemBase<?> item) {
+        return flow.get(item.getLabel()).map(flowItem -> {
             if (item instanceof HistoryItemJson historyItemJson) {
                 return historyItemJson;
             } else {
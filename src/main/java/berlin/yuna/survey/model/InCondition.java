@@ -0,0 +1,51 @@
+package berlin.yuna.survey.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static java.util.Collections.unmodifiableSet;
+
+/**
+ * {@link InCondition} matches if the answer is one of the configured values.
+ * Routes with this condition are indexed by their values - see {@link berlin.yuna.survey.model.types.TransitionSet}
+ *
+ * @param <T> answer type should be the same as the {@link berlin.yuna.survey.model.types.FlowItem} type
+ */
+@SuppressWarnings({"unused", "UnusedReturnValue"})
+public final class InCondition<T> extends Condition<T> {
+
+    private final Set<T> values;
+
+    @SafeVarargs
+    public static <T> InCondition<T> of(final T... values) {
+        final List<T> result = new ArrayList<>(values.length);
+        for (T value : values) {
+            result.add(value);
+        }
+        return new InCondition<>(result);
+    }
+
+    public static <T> InCondition<T> of(final Collection<T> values) {
+        return new InCondition<>(values);
+    }
+
+    public InCondition(final Collection<T> values) {
+        super("in " + values);
+        this.values = unmodifiableSet(new LinkedHashSet<>(values));
+    }
+
+    /**
+     * @return values to match
+     */
+    public Set<T> values() {
+        return values;
+    }
+
+    @Override
+    public boolean apply(final T answer) {
+        return values.contains(answer);
+    }
+}
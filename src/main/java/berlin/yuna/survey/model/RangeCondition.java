@@ -0,0 +1,68 @@
+package berlin.yuna.survey.model;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * {@link RangeCondition} matches if the numeric answer is between {@code min} and {@code max} (both inclusive).
+ * Routes with non overlapping ranges are indexed in a sorted table - see {@link berlin.yuna.survey.model.types.TransitionSet}
+ *
+ * @param <T> answer type should be the same as the {@link berlin.yuna.survey.model.types.FlowItem} type
+ */
+@SuppressWarnings({"unused", "UnusedReturnValue"})
+public final class RangeCondition<T extends Number> extends Condition<T> {
+
+    private final long min;
+    private final long max;
+
+    public static <T extends Number> RangeCondition<T> of(final long min, final long max) {
+        return new RangeCondition<>(min, max);
+    }
+
+    public RangeCondition(final long min, final long max) {
+        super(min + ".." + max);
+        if (min > max) {
+            throw new IllegalArgumentException("Range min [" + min + "] is greater than max [" + max + "]");
+        }
+        this.min = min;
+        this.max = max;
+    }
+
+    /**
+     * @return lower bound (inclusive)
+     */
+    public long min() {
+        return min;
+    }
+
+    /**
+     * @return upper bound (inclusive)
+     */
+    public long max() {
+        return max;
+    }
+
+    @Override
+    public boolean apply(final T answer) {
+        return answer != null && compare(answer, min) >= 0 && compare(answer, max) <= 0;
+    }
+
+    /**
+     * Compares a number with a bound without losing precision for integral types
+     *
+     * @param value number to compare
+     * @param bound bound to compare with
+     * @return negative, zero or positive like {@link Comparable#compareTo(Object)}
+     */
+    public static int compare(final Number value, final long bound) {
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            return Long.compare(value.longValue(), bound);
+        } else if (value instanceof BigInteger bigInteger) {
+            return bigInteger.compareTo(BigInteger.valueOf(bound));
+        } else if (value instanceof BigDecimal bigDecimal) {
+            return bigDecimal.compareTo(BigDecimal.valueOf(bound));
+        }
+        final double number = value.doubleValue();
+        return number < bound ? -1 : (number > bound || Double.isNaN(number) ? 1 : 0);
+    }
+}
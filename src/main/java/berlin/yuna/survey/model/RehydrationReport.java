@@ -0,0 +1,66 @@
+package berlin.yuna.survey.model;
+
+import java.time.Duration;
+
+/**
+ * Result of a bulk rehydration - see {@link berlin.yuna.survey.logic.SurveyRehydrator}
+ */
+@SuppressWarnings({"unused", "UnusedReturnValue"})
+public final class RehydrationReport {
+
+    private final long succeeded;
+    private final long failed;
+    private final Duration elapsed;
+
+    public RehydrationReport(final long succeeded, final long failed, final Duration elapsed) {
+        this.succeeded = succeeded;
+        this.failed = failed;
+        this.elapsed = elapsed;
+    }
+
+    /**
+     * @return number of rehydrated {@link berlin.yuna.survey.logic.Survey}s
+     */
+    public long succeeded() {
+        return succeeded;
+    }
+
+    /**
+     * @return number of histories which could not be rehydrated
+     */
+    public long failed() {
+        return failed;
+    }
+
+    /**
+     * @return number of processed histories
+     */
+    public long total() {
+        return succeeded + failed;
+    }
+
+    /**
+     * @return duration of the rehydration
+     */
+    public Duration elapsed() {
+        return elapsed;
+    }
+
+    /**
+     * @return processed histories per second
+     */
+    public double throughput() {
+        final long nanos = elapsed.toNanos();
+        return nanos == 0 ? 0 : total() * 1_000_000_000d / nanos;
+    }
+
+    @Override
+    public String toString() {
+        return "RehydrationReport{" +
+                "succeeded=" + succeeded +
+                ", failed=" + failed +
+                ", elapsed=" + elapsed +
+                ", throughput=" + throughput() +
+                '}';
+    }
+}
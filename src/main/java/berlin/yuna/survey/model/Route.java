@@ -3,6 +3,7 @@ package berlin.yuna.survey.model;
 import berlin.yuna.survey.model.types.FlowItem;
 
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 
 @SuppressWarnings({"unused", "UnusedReturnValue"})
@@ -23,6 +24,18 @@ public class Route<T> implements Comparable<Route<?>>{
         return (hasCondition() && condition.apply(answer)) || (hasFunction() && function.apply(answer));
     }
 
+    /**
+     * Same as {@link Route#apply(Object)} without blocking on {@link AsyncCondition}s
+     *
+     * @param answer answer to check
+     * @return {@code true} if the route matches
+     */
+    public CompletableFuture<Boolean> applyAsync(final T answer) {
+        final CompletableFuture<Boolean> result = condition instanceof AsyncCondition<T> async ?
+                async.evaluate(answer) : CompletableFuture.completedFuture(hasCondition() && condition.apply(answer));
+        return hasFunction() ? result.thenApply(matched -> matched || function.apply(answer)) : result;
+    }
+
     public boolean hasCondition() {
         return condition != null;
     }
@@ -55,6 +68,10 @@ public class Route<T> implements Comparable<Route<?>>{
         return condition;
     }
 
+    public Function<T, Boolean> getFunction() {
+        return function;
+    }
+
     public boolean isBackwardFlow() {
         return backwards;
     }
@@ -0,0 +1,336 @@
+package berlin.yuna.survey.model.types;
+
+import berlin.yuna.survey.model.Route;
+import berlin.yuna.survey.model.exception.QuestionTypeException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * The {@link CompiledFlow} is an immutable snapshot of a {@link FlowItem} graph. All items are stored in dense
+ * arrays by their id ({@link FlowItem#id()}) with a {@code label} index which allows lookups in constant time. The snapshot can be shared across
+ * threads without locks. Any modification of the flow invalidates the snapshot - see {@link CompiledFlow#isValid()}
+ * and {@link FlowItem#compile()}
+ */
+@SuppressWarnings({"unused", "UnusedReturnValue"})
+public final class CompiledFlow {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final FlowGraph graph;
+    private final long modifications;
+    private final FlowItem<?, ?> start;
+    private final int count;
+    private final FlowItem<?, ?>[] nodes;
+    private final int[][] targets;
+    private final int[][] parents;
+    private final Map<String, Integer> index;
+    private final CompiledFlow base;
+    private volatile FlowMachine machine;
+    private volatile Long fingerprint;
+
+    /**
+     * Compiles the flow which is linked to the given {@link FlowItem}
+     *
+     * @param start start item of the flow
+     * @return {@link CompiledFlow}
+     */
+    static CompiledFlow compile(final FlowItem<?, ?> start) {
+        return new CompiledFlow(start);
+    }
+
+    private CompiledFlow(final FlowItem<?, ?> start) {
+        this.graph = start.graph().root();
+        this.modifications = graph.modifications();
+        this.start = start;
+        final Map<String, Integer> labels = graph.ids();
+        final FlowItem<?, ?>[] items = new FlowItem<?, ?>[labels.size()];
+        final List<Set<FlowItem<?, ?>>> forward = new ArrayList<>(items.length);
+        final List<Set<FlowItem<?, ?>>> backward = new ArrayList<>(items.length);
+        for (int i = 0; i < items.length; i++) {
+            forward.add(new LinkedHashSet<>());
+            backward.add(new LinkedHashSet<>());
+        }
+        final Set<FlowItem<?, ?>> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        final ArrayDeque<FlowItem<?, ?>> queue = new ArrayDeque<>();
+        queue.add(start);
+        visited.add(start);
+        int reachable = 0;
+        while (!queue.isEmpty()) {
+            final FlowItem<?, ?> current = queue.poll();
+            final int id = labels.get(current.label());
+            if (items[id] == null) {
+                items[id] = current;
+                reachable++;
+            }
+            for (Route<?> route : current.transitions()) {
+                if (route.hasTarget()) {
+                    forward.get(id).add(route.target());
+                    enqueue(queue, visited, route.target());
+                }
+            }
+            for (FlowItem<?, ?> parent : current.parents()) {
+                backward.get(id).add(parent);
+                enqueue(queue, visited, parent);
+            }
+        }
+        this.count = reachable;
+        this.index = Collections.unmodifiableMap(labels);
+        this.nodes = items;
+        this.targets = toIds(forward);
+        this.parents = toIds(backward);
+        this.base = this;
+    }
+
+    private CompiledFlow(final CompiledFlow base, final FlowItem<?, ?> start) {
+        this.graph = base.graph;
+        this.modifications = base.modifications;
+        this.start = start;
+        this.count = base.count;
+        this.index = base.index;
+        this.nodes = base.nodes;
+        this.targets = base.targets;
+        this.parents = base.parents;
+        this.base = base;
+    }
+
+    /**
+     * Same snapshot with another start item - shares all arrays
+     *
+     * @param item start item of the new snapshot
+     * @return {@link CompiledFlow} or {@code null} if the item is not part of this snapshot
+     */
+    CompiledFlow from(final FlowItem<?, ?> item) {
+        if (item == start) {
+            return this;
+        }
+        final Integer id = index.get(item.label());
+        return id == null || nodes[id] != item ? null : new CompiledFlow(base, item);
+    }
+
+    /**
+     * @return {@code true} if the flow wasn't modified since this snapshot was taken
+     */
+    public boolean isValid() {
+        return graph.modifications() == modifications;
+    }
+
+    /**
+     * Compiles the forward routes to a {@link FlowMachine} - the machine is created once per snapshot
+     *
+     * @return {@link FlowMachine}
+     */
+    public FlowMachine machine() {
+        if (base != this) {
+            return base.machine();
+        }
+        FlowMachine result = machine;
+        if (result == null) {
+            result = FlowMachine.compile(this);
+            machine = result;
+        }
+        return result;
+    }
+
+    /**
+     * Fingerprint of the flow which doesn't depend on the ids - computed once per snapshot
+     *
+     * @return hash of labels, types and forward routes of all items
+     */
+    public long fingerprint() {
+        if (base != this) {
+            return base.fingerprint();
+        }
+        Long result = fingerprint;
+        if (result == null) {
+            result = hashNodes();
+            fingerprint = result;
+        }
+        return result;
+    }
+
+    /**
+     * @return {@link FlowItem} which was used to compile the flow
+     */
+    public FlowItem<?, ?> first() {
+        return start;
+    }
+
+    /**
+     * @return number of {@link FlowItem}s in the flow
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Ids are dense from {@code 0} to {@link CompiledFlow#capacity()} - ids of items which are not reachable anymore
+     * (e.g. after overwriting a route) are not reused
+     *
+     * @return number of ids in the flow
+     */
+    public int capacity() {
+        return nodes.length;
+    }
+
+    /**
+     * @param label The {@code label} to search in flow
+     * @return {@code true} if the flow contains the {@code label}
+     */
+    public boolean contains(final String label) {
+        return id(label) != -1;
+    }
+
+    /**
+     * Get a flow item by the given {@code String}
+     *
+     * @param label The {@code label} to search in flow
+     * @return {@link Optional<FlowItem>} or {@link Optional#empty()} when flow doesn't contain the
+     * requested item
+     */
+    public Optional<FlowItem<?, ?>> get(final String label) {
+        final int id = id(label);
+        return id == -1 ? Optional.empty() : Optional.of(nodes[id]);
+    }
+
+    /**
+     * @param id id of the {@link FlowItem}
+     * @return label of the given {@code id} or {@code null} if the id is not reachable
+     */
+    public String label(final int id) {
+        return id < 0 || id >= nodes.length || nodes[id] == null ? null : nodes[id].label();
+    }
+
+    /**
+     * Get a flow item by the given {@link FlowItem}
+     *
+     * @param type {@link FlowItem} to search in flow
+     * @return {@link Optional<FlowItem>} or {@link Optional#empty()} when flow doesn't contain the
+     * requested item
+     * @throws QuestionTypeException if the item is defined with a different type in the flow
+     */
+    @SuppressWarnings("unchecked")
+    public <I extends FlowItem<?, ?>> Optional<I> get(final I type) {
+        final int id = id(type.label());
+        if (id == -1) {
+            return Optional.empty();
+        } else if (nodes[id].getClass() != type.getClass()) {
+            throw new QuestionTypeException(first().label(), nodes[id], type);
+        }
+        return Optional.of((I) nodes[id]);
+    }
+
+    /**
+     * Ids are only valid for this snapshot - see {@link FlowItem#id()}
+     *
+     * @param label The {@code label} to search in flow
+     * @return id of the {@link FlowItem} or {@code -1} if the flow doesn't contain the {@code label}
+     */
+    public int id(final String label) {
+        final Integer result = label == null ? null : index.get(label);
+        return result == null || nodes[result] == null ? -1 : result;
+    }
+
+    /**
+     * @param id id of the {@link FlowItem}
+     * @return {@link FlowItem} of the given {@code id} or {@code null} if the id is not reachable
+     */
+    public FlowItem<?, ?> node(final int id) {
+        return nodes[id];
+    }
+
+    /**
+     * @param id id of the {@link FlowItem}
+     * @return number of forward targets of the {@link FlowItem}
+     */
+    public int targetCount(final int id) {
+        return targets[id].length;
+    }
+
+    /**
+     * @param id    id of the {@link FlowItem}
+     * @param index position of the target
+     * @return id of the forward target
+     */
+    public int target(final int id, final int index) {
+        return targets[id][index];
+    }
+
+    /**
+     * @param id id of the {@link FlowItem}
+     * @return number of parents of the {@link FlowItem}
+     */
+    public int parentCount(final int id) {
+        return parents[id].length;
+    }
+
+    /**
+     * @param id    id of the {@link FlowItem}
+     * @param index position of the parent
+     * @return id of the parent
+     */
+    public int parent(final int id, final int index) {
+        return parents[id][index];
+    }
+
+    private static void enqueue(final ArrayDeque<FlowItem<?, ?>> queue, final Set<FlowItem<?, ?>> visited, final FlowItem<?, ?> item) {
+        if (visited.add(item)) {
+            queue.add(item);
+        }
+    }
+
+    private long hashNodes() {
+        long result = 0;
+        for (int id = 0; id < nodes.length; id++) {
+            if (nodes[id] != null) {
+                long routes = 0;
+                for (int target : targets[id]) {
+                    routes += mix(hash(FNV_OFFSET, label(target)));
+                }
+                result += mix(hash(hash(FNV_OFFSET, nodes[id].label()), nodes[id].getClass().getName()) ^ routes);
+            }
+        }
+        return result;
+    }
+
+    private static long hash(final long seed, final String value) {
+        long result = seed;
+        for (int i = 0; i < value.length(); i++) {
+            result = (result ^ value.charAt(i)) * FNV_PRIME;
+        }
+        return result;
+    }
+
+    private static long mix(final long value) {
+        long result = (value ^ (value >>> 33)) * 0xff51afd7ed558ccdL;
+        result = (result ^ (result >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return result ^ (result >>> 33);
+    }
+
+    private int[][] toIds(final List<Set<FlowItem<?, ?>>> linked) {
+        final int[][] result = new int[linked.size()][];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = linked.get(i).stream().mapToInt(item -> index.get(item.label())).distinct().toArray();
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "CompiledFlow{" +
+                "first=" + first() +
+                ", size=" + size() +
+                ", capacity=" + capacity() +
+                ", valid=" + isValid() +
+                '}';
+    }
+}
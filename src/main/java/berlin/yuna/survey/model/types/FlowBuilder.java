@@ -0,0 +1,204 @@
+package berlin.yuna.survey.model.types;
+
+import berlin.yuna.survey.model.Condition;
+import berlin.yuna.survey.model.Route;
+import berlin.yuna.survey.model.exception.QuestionTypeException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import static berlin.yuna.survey.model.exception.QuestionNotFoundException.itemNotFound;
+
+/**
+ * The {@link FlowBuilder} creates a flow from bulk declarations of {@link FlowItem}s and links between them.
+ * All links are wired in one pass by a {@code label} index instead of searching the flow on every
+ * {@link FlowItem#target(FlowItem)} call. The merge rules are the same as for {@link FlowItem#target(FlowItem)}:
+ * <ul>
+ * <li>items with the same {@code label} are merged into the first declared one</li>
+ * <li>a link without condition replaces the previous link without condition</li>
+ * </ul>
+ */
+@SuppressWarnings({"unused", "UnusedReturnValue"})
+public class FlowBuilder {
+
+    private final List<FlowItem<?, ?>> items = new ArrayList<>();
+    private final List<Link> links = new ArrayList<>();
+
+    /**
+     * Declares items of the flow - the first declared item is the start of the flow
+     *
+     * @param items items to add
+     * @return current object
+     */
+    public FlowBuilder add(final FlowItem<?, ?>... items) {
+        for (FlowItem<?, ?> item : items) {
+            add(item);
+        }
+        return this;
+    }
+
+    /**
+     * Declares items of the flow - the first declared item is the start of the flow
+     *
+     * @param items items to add
+     * @return current object
+     */
+    public FlowBuilder add(final Collection<? extends FlowItem<?, ?>> items) {
+        items.forEach(this::add);
+        return this;
+    }
+
+    /**
+     * Declares an item of the flow - the first declared item is the start of the flow
+     *
+     * @param item item to add
+     * @return current object
+     */
+    public FlowBuilder add(final FlowItem<?, ?> item) {
+        if (item == null) {
+            throw itemNotFound(null, null);
+        }
+        items.add(item);
+        return this;
+    }
+
+    /**
+     * Declares a link between two items
+     * A previous link without condition will be overwritten
+     *
+     * @param source label of the source item
+     * @param target label of the target item
+     * @return current object
+     */
+    public FlowBuilder link(final String source, final String target) {
+        links.add(new Link(source, target, null, null));
+        return this;
+    }
+
+    /**
+     * Declares a link between two items
+     *
+     * @param source    label of the source item
+     * @param target    label of the target item
+     * @param condition {@code condition} to match. On {@code true} will execute the transition
+     * @return current object
+     */
+    public <T> FlowBuilder link(final String source, final String target, final Function<T, Boolean> condition) {
+        links.add(new Link(source, target, null, condition));
+        return this;
+    }
+
+    /**
+     * Declares a link between two items
+     *
+     * @param source    label of the source item
+     * @param target    label of the target item
+     * @param condition {@code condition} to match. On {@code true} will execute the transition
+     * @return current object
+     */
+    public <T> FlowBuilder link(final String source, final String target, final Condition<T> condition) {
+        links.add(new Link(source, target, condition, null));
+        return this;
+    }
+
+    /**
+     * Wires all declared links
+     *
+     * @return first declared item as start of the flow
+     * @throws berlin.yuna.survey.model.exception.QuestionNotFoundException if no item was declared or a link refers to an unknown label
+     * @throws QuestionTypeException                                        if items with the same label have different types
+     */
+    public FlowItem<?, ?> build() {
+        return wire().get(items.get(0).label());
+    }
+
+    /**
+     * Wires all declared links
+     *
+     * @param start label of the item to return as start of the flow
+     * @return item with the given label
+     * @throws berlin.yuna.survey.model.exception.QuestionNotFoundException if no item was declared or a label is unknown
+     * @throws QuestionTypeException                                        if items with the same label have different types
+     */
+    public FlowItem<?, ?> build(final String start) {
+        return resolve(wire(), start, items.get(0).label());
+    }
+
+    private Map<String, FlowItem<?, ?>> wire() {
+        if (items.isEmpty()) {
+            throw itemNotFound(null, null, "Missing " + FlowItem.class.getSimpleName() + ", nothing was added");
+        }
+        final Map<String, FlowItem<?, ?>> index = index();
+        final String flow = items.get(0).label();
+        for (Link link : links) {
+            final FlowItem<?, ?> source = resolve(index, link.source(), flow);
+            final FlowItem<?, ?> target = resolve(index, link.target(), flow);
+            if (link.condition() == null && link.function() == null) {
+                source.transitions().removeUnconditionalRoutes();
+            }
+            link(source, target, link.condition(), link.function());
+        }
+        return index;
+    }
+
+    /**
+     * Indexes all declared items and the items which are already linked to them. Duplicates are merged into the first occurrence.
+     *
+     * @return label index of the flow
+     */
+    private Map<String, FlowItem<?, ?>> index() {
+        final Map<String, FlowItem<?, ?>> result = new HashMap<>();
+        final Set<FlowItem<?, ?>> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        final ArrayDeque<FlowItem<?, ?>> queue = new ArrayDeque<>();
+        for (FlowItem<?, ?> item : items) {
+            if (visited.add(item)) {
+                queue.add(item);
+            }
+            while (!queue.isEmpty()) {
+                final FlowItem<?, ?> current = queue.poll();
+                final FlowItem<?, ?> existing = result.putIfAbsent(current.label(), current);
+                if (existing != null && existing != current) {
+                    if (existing.getClass() != current.getClass()) {
+                        throw new QuestionTypeException(items.get(0).label(), existing, current);
+                    }
+                    TransitionSet.merge(existing, current);
+                }
+                for (Route<?> route : current.transitions()) {
+                    if (route.hasTarget() && visited.add(route.target())) {
+                        queue.add(route.target());
+                    }
+                }
+                for (FlowItem<?, ?> parent : current.parents()) {
+                    if (visited.add(parent)) {
+                        queue.add(parent);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private static FlowItem<?, ?> resolve(final Map<String, FlowItem<?, ?>> index, final String label, final String flow) {
+        final FlowItem<?, ?> result = label == null ? null : index.get(label);
+        if (result == null) {
+            throw itemNotFound(label, flow);
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void link(final FlowItem<T, ?> source, final FlowItem<?, ?> target, final Condition<?> condition, final Function<?, Boolean> function) {
+        source.transitions().link(target, (Condition<T>) condition, (Function<T, Boolean>) function);
+    }
+
+    private record Link(String source, String target, Condition<?> condition, Function<?, Boolean> function) {
+    }
+}
@@ -0,0 +1,197 @@
+package berlin.yuna.survey.model.types;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@link FlowGraph} tracks which {@link FlowItem}s are linked to each other (union find) and counts the
+ * modifications of the linked graph. A {@link CompiledFlow} uses the counter to detect outdated snapshots in
+ * constant time.
+ * The root of the graph holds the {@code label} dictionary which gives every {@code label} a dense id. Linking two
+ * graphs keeps the ids of the bigger one and appends the labels of the smaller one, which renumbers them. Ids of
+ * labels which are not reachable anymore are not reclaimed.
+ * Linking is not thread safe - a flow is built by one thread. The links are published through volatile fields, so a
+ * flow can be compiled by any thread after it was built. The root caches one {@link CompiledFlow} per start item for
+ * the current modification only, which keeps the memory linear in the size of the flow.
+ */
+final class FlowGraph {
+
+    private volatile FlowGraph parent;
+    private volatile int rank;
+    private volatile long modifications;
+    private volatile boolean frozen;
+    private volatile List<String> labels;
+    private volatile Map<String, Integer> ids;
+    private volatile Snapshots snapshots;
+
+    FlowGraph(final String label) {
+        this.labels = new ArrayList<>(List.of(label));
+        this.ids = new HashMap<>(Map.of(label, 0));
+    }
+
+    /**
+     * @return current root of the linked graph
+     */
+    FlowGraph root() {
+        FlowGraph result = this;
+        while (result.parent != null) {
+            result = result.parent;
+        }
+        return result;
+    }
+
+    /**
+     * Snapshot of the linked graph - cached until the next modification. Snapshots of different start items share
+     * their arrays.
+     *
+     * @param start start item of the snapshot
+     * @return {@link CompiledFlow} of the linked graph
+     */
+    CompiledFlow snapshot(final FlowItem<?, ?> start) {
+        final FlowGraph root = root();
+        Snapshots result = root.snapshots;
+        if (result == null || result.modifications != root.modifications) {
+            result = new Snapshots(root.modifications);
+            root.snapshots = result;
+        }
+        return result.get(start);
+    }
+
+    /**
+     * @return number of modifications of the linked graph
+     */
+    long modifications() {
+        return modifications;
+    }
+
+    /**
+     * @param label label to resolve
+     * @return dense id of the {@code label} or {@code -1} if the label is not part of the linked graph
+     */
+    int id(final String label) {
+        final Integer result = root().ids.get(label);
+        return result == null ? -1 : result;
+    }
+
+    /**
+     * @return number of labels of the linked graph
+     */
+    int size() {
+        return root().labels.size();
+    }
+
+    /**
+     * @return copy of the {@code label} dictionary
+     */
+    Map<String, Integer> ids() {
+        return new HashMap<>(root().ids);
+    }
+
+    /**
+     * @return {@code true} if the linked graph must not be modified anymore
+     */
+    boolean isFrozen() {
+        return root().frozen;
+    }
+
+    /**
+     * Marks the linked graph as immutable
+     */
+    void freeze() {
+        root().frozen = true;
+    }
+
+    /**
+     * Marks the linked graph as modified which invalidates all {@link CompiledFlow} snapshots of it
+     */
+    void modified() {
+        final FlowGraph root = root();
+        if (root.frozen) {
+            throw new IllegalStateException("Frozen flow can't be modified");
+        }
+        root.modifications++;
+    }
+
+    /**
+     * Links two graphs - both previous roots are marked as modified
+     *
+     * @param other graph to link with
+     */
+    void merge(final FlowGraph other) {
+        final FlowGraph first = compress();
+        final FlowGraph second = other.compress();
+        if (first == second) {
+            return;
+        } else if (first.frozen || second.frozen) {
+            throw new IllegalStateException("Frozen flow can't be modified");
+        }
+        first.modifications++;
+        second.modifications++;
+        final FlowGraph bigger = first.labels.size() < second.labels.size() ? second : first;
+        final FlowGraph smaller = bigger == first ? second : first;
+        for (String label : smaller.labels) {
+            if (bigger.ids.putIfAbsent(label, bigger.labels.size()) == null) {
+                bigger.labels.add(label);
+            }
+        }
+        final FlowGraph root = first.rank < second.rank ? second : first;
+        final FlowGraph child = root == first ? second : first;
+        if (first.rank == second.rank) {
+            root.rank++;
+        }
+        root.labels = bigger.labels;
+        root.ids = bigger.ids;
+        child.parent = root;
+        child.labels = null;
+        child.ids = null;
+        child.snapshots = null;
+    }
+
+    private FlowGraph compress() {
+        FlowGraph result = this;
+        while (result.parent != null) {
+            if (result.parent.parent != null) {
+                result.parent = result.parent.parent;
+            }
+            result = result.parent;
+        }
+        return result;
+    }
+
+    /**
+     * Snapshots of one modification by start item
+     */
+    private static final class Snapshots {
+
+        private final long modifications;
+        private final Map<FlowItem<?, ?>, CompiledFlow> byStart = new IdentityHashMap<>();
+        private volatile CompiledFlow base;
+
+        private Snapshots(final long modifications) {
+            this.modifications = modifications;
+        }
+
+        private CompiledFlow get(final FlowItem<?, ?> start) {
+            final CompiledFlow first = base;
+            return first != null && first.first() == start ? first : getOrCompile(start);
+        }
+
+        private synchronized CompiledFlow getOrCompile(final FlowItem<?, ?> start) {
+            CompiledFlow result = byStart.get(start);
+            if (result == null) {
+                result = base == null ? null : base.from(start);
+                if (result == null) {
+                    result = CompiledFlow.compile(start);
+                }
+                if (base == null) {
+                    base = result;
+                }
+                byStart.put(start, result);
+            }
+            return result;
+        }
+    }
+}
@@ -12,22 +12,25 @@ import berlin.yuna.survey.model.exception.FlowRuntimeException;
 import berlin.yuna.survey.model.exception.NotJsonPersonableType;
 import berlin.yuna.survey.model.exception.QuestionTypeException;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
+import java.util.ArrayDeque;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Function;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
 
 import static berlin.yuna.survey.config.SurveyDefaults.surveyMapper;
+import static berlin.yuna.survey.config.SurveyDefaults.surveyReader;
 import static java.util.Arrays.stream;
-import static java.util.stream.Collectors.toSet;
 
 /**
  * The {@link FlowItem} defines a user flow which is used by {@link Survey} to keep track on the history
@@ -40,12 +43,15 @@ public abstract class FlowItem<T, C extends FlowItem<T, C>> implements Comparabl
 
     private final String label;
     private final Set<FlowItem<?, ?>> parents = ConcurrentHashMap.newKeySet();
+    private final Set<FlowItem<?, ?>> parentsView = Collections.unmodifiableSet(parents);
     private final TransitionSet<T> transitions;
+    private final FlowGraph graph;
     private static final Pattern SPECIAL_CHARS = Pattern.compile("^[A-Z_0-9]*$");
 
     public FlowItem(final String label) {
         validateNewLabel(label);
         this.label = label;
+        this.graph = new FlowGraph(label);
         this.transitions = new TransitionSet<>(this);
     }
 
@@ -68,7 +74,7 @@ public abstract class FlowItem<T, C extends FlowItem<T, C>> implements Comparabl
      * requested item
      */
     public Optional<FlowItem<?, ?>> get(final String label) {
-        return label == null ? Optional.empty() : find(label);
+        return label == null ? Optional.empty() : compile().get(label);
     }
 
     /**
@@ -79,7 +85,7 @@ public abstract class FlowItem<T, C extends FlowItem<T, C>> implements Comparabl
      * requested item
      */
     public <I extends FlowItem<?, ?>> Optional<I> get(final I type) {
-        return label == null ? Optional.empty() : find(type);
+        return label == null ? Optional.empty() : compile().get(type);
     }
 
     /**
@@ -214,7 +220,7 @@ public abstract class FlowItem<T, C extends FlowItem<T, C>> implements Comparabl
     /**
      * Returns a {@link Set} with all configured targets
      *
-     * @return a set view of all configured {@code targets} for this {@link FlowItem} object
+     * @return a copy of all configured {@code targets} for this {@link FlowItem} object
      */
     public Set<FlowItem<?, ?>> targets() {
         return transitions.forwardTargets();
@@ -269,7 +275,7 @@ public abstract class FlowItem<T, C extends FlowItem<T, C>> implements Comparabl
     /**
      * Returns a {@link Set} with all configured targets
      *
-     * @return a set view of all configured {@code targets} for this {@link FlowItem} object
+     * @return a copy of all configured {@code targets} for this {@link FlowItem} object
      */
     public Set<FlowItem<?, ?>> targetsBack() {
         return transitions.backwardTargets();
@@ -282,7 +288,7 @@ public abstract class FlowItem<T, C extends FlowItem<T, C>> implements Comparabl
      * @return a set view of all configured {@code targets} for this {@link FlowItem} object
      */
     public Set<FlowItem<?, ?>> parents() {
-        return parents;
+        return graph.isFrozen() ? parentsView : parents;
     }
 
     /**
@@ -335,26 +341,90 @@ public abstract class FlowItem<T, C extends FlowItem<T, C>> implements Comparabl
      * @return object from json
      */
     public Optional<T> fromJson(final String answerJson) {
-        final ObjectMapper mapper = surveyMapper();
         return answerJson == null || answerJson.trim().length() == 0 ?
-                Optional.empty() : tryDo(() -> mapper.readValue(answerJson, new TypeReference<>() {}));
+                Optional.empty() : tryDo(() -> surveyReader().readValue(answerJson));
     }
 
     /**
      * Returns next {@link FlowItem} which is configured for a back transition
+     * Routes with declarative conditions ({@link berlin.yuna.survey.model.EqualsCondition},
+     * {@link berlin.yuna.survey.model.InCondition}, {@link berlin.yuna.survey.model.RangeCondition}) are resolved
+     * by an index before any other condition is applied
      *
      * @param answer input parameter
      * @return next ({@code backTransition}) {@link FlowItem}
      */
     public Optional<FlowItem<?, ?>> answer(final T answer) {
         if (answer != null) {
-            for (Route<T> route : transitions.forwardRoutes()) {
-                if (route.hasAnyCondition() && route.apply(answer)) {
+            final Route<T> indexed = transitions.forwardIndexed(answer);
+            if (indexed != null) {
+                return Optional.of(indexed.target());
+            }
+            for (Route<T> route : transitions.forwardConditional()) {
+                if (route.apply(answer)) {
                     return Optional.of(route.target());
                 }
             }
         }
-        return transitions.forwardRoutes().stream().filter(Route::hasNoCondition).findFirst().map(Route::target);
+        final Route<T> fallback = transitions.forwardDefault();
+        return fallback == null ? Optional.empty() : Optional.of(fallback.target());
+    }
+
+    /**
+     * Same as {@link FlowItem#parseAndAnswer(ContextExchange)} without blocking on
+     * {@link berlin.yuna.survey.model.AsyncCondition}s - see {@link FlowItem#answerAsync(Object)}
+     *
+     * @param context input parameter
+     * @return next {@link FlowItem} or {@link Optional#empty()} if the answer can't be parsed or no route matches
+     */
+    public CompletableFuture<Optional<FlowItem<?, ?>>> parseAndAnswerAsync(final ContextExchange context) {
+        return parseAndAnswerAsync(context, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Same as {@link FlowItem#parseAndAnswer(ContextExchange)} without blocking on
+     * {@link berlin.yuna.survey.model.AsyncCondition}s - see {@link FlowItem#answerAsync(Object, Executor)}
+     *
+     * @param context  input parameter
+     * @param executor runs the remaining routes after an {@link berlin.yuna.survey.model.AsyncCondition} completed
+     * @return next {@link FlowItem} or {@link Optional#empty()} if the answer can't be parsed or no route matches
+     */
+    public CompletableFuture<Optional<FlowItem<?, ?>>> parseAndAnswerAsync(final ContextExchange context, final Executor executor) {
+        return parse(context).map(answer -> answerAsync(answer, executor)).orElseGet(() -> CompletableFuture.completedFuture(Optional.empty()));
+    }
+
+    /**
+     * Same as {@link FlowItem#answerAsync(Object, Executor)} with the {@link ForkJoinPool#commonPool()} - only
+     * suitable if the routes after an {@link berlin.yuna.survey.model.AsyncCondition} don't block
+     *
+     * @param answer input parameter
+     * @return next {@link FlowItem} or {@link Optional#empty()} if no route matches
+     */
+    public CompletableFuture<Optional<FlowItem<?, ?>>> answerAsync(final T answer) {
+        return answerAsync(answer, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Same as {@link FlowItem#answer(Object)} without blocking on {@link berlin.yuna.survey.model.AsyncCondition}s -
+     * the routes are still checked one after another in the same order. The routes after an
+     * {@link berlin.yuna.survey.model.AsyncCondition} run on the given {@code executor} and never on the thread
+     * which completed the condition (e.g. the timeout timer).
+     *
+     * @param answer   input parameter
+     * @param executor runs the remaining routes after an {@link berlin.yuna.survey.model.AsyncCondition} completed
+     * @return next {@link FlowItem} or {@link Optional#empty()} if no route matches
+     */
+    public CompletableFuture<Optional<FlowItem<?, ?>>> answerAsync(final T answer, final Executor executor) {
+        if (executor == null) {
+            throw new IllegalArgumentException("Missing " + Executor.class.getSimpleName() + ", given was null");
+        } else if (answer != null) {
+            final Route<T> indexed = transitions.forwardIndexed(answer);
+            if (indexed != null) {
+                return CompletableFuture.completedFuture(Optional.of(indexed.target()));
+            }
+            return answerAsync(transitions.forwardConditional(), 0, answer, executor);
+        }
+        return CompletableFuture.completedFuture(Optional.ofNullable(transitions.forwardDefault()).map(Route::target));
     }
 
     /**
@@ -374,16 +444,14 @@ public abstract class FlowItem<T, C extends FlowItem<T, C>> implements Comparabl
      * @return {@code true} if transition is allowed (empty if no transition is configured)
      */
     public Optional<Boolean> revert(final T answer) {
-        final AtomicBoolean blocker = new AtomicBoolean(false);
-        for (Route<T> route : transitions.backwardRoutes().stream().filter(Route::hasAnyCondition).collect(toSet())) {
-            final boolean applied = route.apply(answer);
-            if (!applied) {
-                blocker.set(true);
-            } else {
+        final Route<T>[] routes = transitions.backwardConditional();
+        for (Route<T> route : routes) {
+            if (route.apply(answer)) {
                 return Optional.of(true);
             }
         }
-        return blocker.get() ? Optional.of(false) : transitions.backwardRoutes().stream().filter(Route::hasNoCondition).findFirst().map(route -> route.apply(answer));
+        final Route<T> fallback = transitions.backwardDefault();
+        return routes.length > 0 ? Optional.of(false) : fallback == null ? Optional.empty() : Optional.of(fallback.apply(answer));
     }
 
     /**
@@ -393,6 +461,18 @@ public abstract class FlowItem<T, C extends FlowItem<T, C>> implements Comparabl
         return label;
     }
 
+    /**
+     * Dense id of the item within the current snapshot of its flow. Ids are transient values - linking the flow to
+     * a bigger flow renumbers them, the start item is not necessarily {@code 0} and ids of removed items are not
+     * reused. Use ids only together with the {@link CompiledFlow} they were taken from and persist the {@code label}.
+     * Items with the same {@code label} share the same id.
+     *
+     * @return id of the item within its flow - see {@link CompiledFlow#id(String)}
+     */
+    public int id() {
+        return graph.id(label);
+    }
+
     /**
      * @param answer input for check
      * @return {@code true} if {@link HistoryItem} relates to the current {@link FlowItem}
@@ -424,6 +504,40 @@ public abstract class FlowItem<T, C extends FlowItem<T, C>> implements Comparabl
         return new DiagramExporter(Survey.init(this));
     }
 
+    /**
+     * Compiles the flow into an immutable {@link CompiledFlow} snapshot with constant time lookups.
+     * The snapshot is cached by the flow and only rebuilt after the flow was modified.
+     *
+     * @return {@link CompiledFlow} of the current flow
+     */
+    public CompiledFlow compile() {
+        return graph.snapshot(this);
+    }
+
+    /**
+     * Freezes the flow - any further modification will throw a {@link FlowRuntimeException}.
+     * A frozen flow is immutable and can be shared by any number of {@link Survey}s and threads.
+     *
+     * @return {@link CompiledFlow} of the frozen flow
+     */
+    public CompiledFlow freeze() {
+        final CompiledFlow result = compile();
+        for (int id = 0; id < result.capacity(); id++) {
+            if (result.node(id) != null) {
+                result.node(id).transitions().forwardRouteView();
+            }
+        }
+        graph.freeze();
+        return result;
+    }
+
+    /**
+     * @return {@code true} if the flow is frozen and can't be modified anymore
+     */
+    public boolean isFrozen() {
+        return graph.isFrozen();
+    }
+
     /**
      * Search {@link FlowItem} in current flow
      *
@@ -437,6 +551,19 @@ public abstract class FlowItem<T, C extends FlowItem<T, C>> implements Comparabl
         return result.isEmpty() ? Optional.empty() : Optional.of((I) result.get());
     }
 
+    private CompletableFuture<Optional<FlowItem<?, ?>>> answerAsync(final Route<T>[] routes, final int index, final T answer, final Executor executor) {
+        if (index == routes.length) {
+            return CompletableFuture.completedFuture(Optional.ofNullable(transitions.forwardDefault()).map(Route::target));
+        }
+        final CompletableFuture<Boolean> matched = routes[index].applyAsync(answer);
+        return matched.isDone() ? matched.thenCompose(result -> nextAsync(routes, index, answer, executor, result))
+                : matched.thenComposeAsync(result -> nextAsync(routes, index, answer, executor, result), executor);
+    }
+
+    private CompletableFuture<Optional<FlowItem<?, ?>>> nextAsync(final Route<T>[] routes, final int index, final T answer, final Executor executor, final boolean matched) {
+        return matched ? CompletableFuture.completedFuture(Optional.of(routes[index].target())) : answerAsync(routes, index + 1, answer, executor);
+    }
+
     private static void validateNewLabel(final String label) {
         if (!SPECIAL_CHARS.matcher(label).find()) {
             throw new IllegalArgumentException("Label should only contain enum able characters like [A-Z_0-9]");
@@ -444,31 +571,48 @@ public abstract class FlowItem<T, C extends FlowItem<T, C>> implements Comparabl
     }
 
     protected void addParent(final FlowItem<?, ?> parent) {
-        parents.add(parent);
+        assertModifiable();
+        if (parents.add(parent)) {
+            graph.merge(parent.graph);
+            graph.modified();
+        }
+    }
+
+    FlowGraph graph() {
+        return graph;
+    }
+
+    void assertModifiable() {
+        if (graph.isFrozen()) {
+            throw new FlowRuntimeException(label, null, "Flow is frozen and can't be modified");
+        }
     }
 
+    /**
+     * Depth first search over targets and parents - iterative as flows can be longer than the call stack
+     */
     private Optional<FlowItem<?, ?>> find(final String search) {
-        return find(this, search, new HashSet<>(), true, true);
-    }
-
-    private Optional<FlowItem<?, ?>> find(
-            final FlowItem<?, ?> current,
-            final String search,
-            final HashSet<String> checked,
-            final boolean parents,
-            final boolean targets
-    ) {
-        if (current.label().equals(search)) {
-            return Optional.of(current);
-        } else if (!checked.contains(current.label())) {
-            checked.add(current.label());
-            return Stream.concat(
-                    targets ? current.transitions.stream().filter(Route::hasTarget).map(Route::target) : Stream.empty(),
-                    parents ? current.parents.stream() : Stream.empty()
-            ).flatMap(q -> find(q, search, checked, parents, targets).stream()).findFirst();
-        } else {
-            return Optional.empty();
+        final Set<String> checked = new HashSet<>();
+        final ArrayDeque<Iterator<FlowItem<?, ?>>> stack = new ArrayDeque<>();
+        FlowItem<?, ?> current = this;
+        while (current != null) {
+            if (current.label().equals(search)) {
+                return Optional.of(current);
+            } else if (checked.add(current.label())) {
+                stack.push(Stream.concat(
+                        current.transitions.stream().filter(Route::hasTarget).<FlowItem<?, ?>>map(Route::target),
+                        current.parents.stream()
+                ).iterator());
+            }
+            current = null;
+            while (current == null && !stack.isEmpty()) {
+                current = stack.peek().hasNext() ? stack.peek().next() : null;
+                if (current == null) {
+                    stack.pop();
+                }
+            }
         }
+        return Optional.empty();
     }
 
     private void assertSameType(final FlowItem<?, ?> original, final FlowItem<?, ?> invalid) {
@@ -0,0 +1,203 @@
+package berlin.yuna.survey.model.types;
+
+import berlin.yuna.survey.model.Condition;
+import berlin.yuna.survey.model.ContextExchange;
+import berlin.yuna.survey.model.Route;
+import berlin.yuna.survey.model.exception.FlowRuntimeException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+import static java.lang.invoke.MethodType.methodType;
+
+/**
+ * The {@link FlowMachine} compiles the forward routes of a {@link CompiledFlow} into one {@link MethodHandle} tree.
+ * A {@code tableswitch} over the node ids selects the node and the conditions of the node are chained as guards with
+ * constant targets, so every {@link Condition} and {@link Function} is bound to its own combinator instead of the
+ * shared loop of {@link FlowItem#answer(Object)}.
+ * The tree is held by an instance field and is not a JIT constant - whether the JIT inlines through it depends on the
+ * call site and is not guaranteed. Measure before enabling {@code Survey#compiledDispatch(boolean)}.
+ * The machine falls back to {@link FlowItem#answer(Object)} as soon as the flow was modified.
+ */
+@SuppressWarnings({"unused", "UnusedReturnValue"})
+public final class FlowMachine {
+
+    private static final int NONE = -1;
+    private static final MethodHandle CONDITION;
+    private static final MethodHandle FUNCTION;
+    private static final MethodHandle INDEXED;
+    private static final MethodHandle IS_NULL;
+    private static final MethodHandle IS_FOUND;
+
+    static {
+        try {
+            final MethodHandles.Lookup lookup = MethodHandles.lookup();
+            CONDITION = lookup.findVirtual(Condition.class, "apply", methodType(boolean.class, Object.class));
+            FUNCTION = MethodHandles.filterReturnValue(
+                    lookup.findVirtual(Function.class, "apply", methodType(Object.class, Object.class)),
+                    lookup.findStatic(FlowMachine.class, "isTrue", methodType(boolean.class, Object.class))
+            );
+            INDEXED = lookup.findStatic(FlowMachine.class, "indexed", methodType(int.class, TransitionSet.class, Map.class, Object.class));
+            IS_NULL = lookup.findStatic(FlowMachine.class, "isNull", methodType(boolean.class, Object.class));
+            IS_FOUND = lookup.findStatic(FlowMachine.class, "isFound", methodType(boolean.class, int.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final CompiledFlow flow;
+    private final MethodHandle dispatch;
+
+    /**
+     * Compiles the forward routes of the flow
+     *
+     * @param flow {@link CompiledFlow} to compile
+     * @return {@link FlowMachine}
+     */
+    static FlowMachine compile(final CompiledFlow flow) {
+        return new FlowMachine(flow);
+    }
+
+    private FlowMachine(final CompiledFlow flow) {
+        this.flow = flow;
+        final MethodHandle fallback = MethodHandles.dropArguments(MethodHandles.constant(int.class, NONE), 0, int.class, Object.class);
+        final MethodHandle[] nodes = new MethodHandle[flow.capacity()];
+        for (int id = 0; id < nodes.length; id++) {
+            nodes[id] = flow.node(id) == null ? fallback : MethodHandles.dropArguments(nodeOf(flow.node(id)), 0, int.class);
+        }
+        this.dispatch = MethodHandles.tableSwitch(fallback, nodes);
+    }
+
+    /**
+     * @return {@code true} if the flow wasn't modified since the machine was compiled
+     */
+    public boolean isValid() {
+        return flow.isValid();
+    }
+
+    /**
+     * @return {@link CompiledFlow} of the machine
+     */
+    public CompiledFlow flow() {
+        return flow;
+    }
+
+    /**
+     * Parses the answer and returns the next {@link FlowItem} - same as {@link FlowItem#parseAndAnswer(ContextExchange)}
+     *
+     * @param item    current item of the flow
+     * @param context input parameter
+     * @return next {@link FlowItem} or {@link Optional#empty()} if no route matches
+     */
+    public Optional<FlowItem<?, ?>> parseAndAnswer(final FlowItem<?, ?> item, final ContextExchange context) {
+        final int id = flow.id(item.label());
+        if (id == NONE || !isValid()) {
+            return item.parseAndAnswer(context);
+        }
+        return item.parse(context).flatMap(answer -> Optional.ofNullable(next(id, answer)));
+    }
+
+    /**
+     * Returns next {@link FlowItem} - same as {@link FlowItem#answer(Object)}
+     *
+     * @param id     id of the current {@link FlowItem} in {@link FlowMachine#flow()}
+     * @param answer parsed answer
+     * @return next {@link FlowItem} or {@code null} if no route matches
+     * @throws IllegalArgumentException if the id is not part of the flow
+     */
+    public FlowItem<?, ?> next(final int id, final Object answer) {
+        final FlowItem<?, ?> item = id < 0 || id >= flow.capacity() ? null : flow.node(id);
+        if (item == null) {
+            throw new IllegalArgumentException("Unknown id [" + id + "] in flow [" + flow.first().label() + "]");
+        } else if (!isValid()) {
+            return answerOf(item, answer).orElse(null);
+        }
+        final int result;
+        try {
+            result = (int) dispatch.invokeExact(id, answer);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new FlowRuntimeException(flow.node(id).label(), flow.first().label(), "Failed to apply route", e);
+        }
+        return result == NONE ? null : flow.node(result);
+    }
+
+    private MethodHandle nodeOf(final FlowItem<?, ?> item) {
+        final TransitionSet<?> transitions = item.transitions();
+        final Route<?> fallback = transitions.forwardDefault();
+        final MethodHandle otherwise = constant(fallback == null ? NONE : idOf(fallback));
+        MethodHandle result = otherwise;
+        final Route<?>[] routes = transitions.forwardConditional();
+        for (int i = routes.length - 1; i >= 0; i--) {
+            result = MethodHandles.guardWithTest(conditionOf(routes[i]), constant(idOf(routes[i])), result);
+        }
+        if (transitions.hasForwardIndex()) {
+            final Map<Route<?>, Integer> ids = new IdentityHashMap<>();
+            transitions.forwardRouteView().forEach(route -> ids.put(route, idOf(route)));
+            final MethodHandle found = MethodHandles.dropArguments(MethodHandles.identity(int.class), 1, Object.class);
+            final MethodHandle lookup = MethodHandles.insertArguments(INDEXED, 0, transitions, ids);
+            result = MethodHandles.foldArguments(
+                    MethodHandles.guardWithTest(IS_FOUND, found, MethodHandles.dropArguments(result, 0, int.class)),
+                    lookup
+            );
+        }
+        return MethodHandles.guardWithTest(IS_NULL, otherwise, result);
+    }
+
+    private int idOf(final Route<?> route) {
+        return flow.id(route.target().label());
+    }
+
+    private static MethodHandle conditionOf(final Route<?> route) {
+        if (route.hasCondition() && route.hasFunction()) {
+            // same as Route.apply: condition || function
+            return MethodHandles.guardWithTest(
+                    CONDITION.bindTo(route.getCondition()),
+                    MethodHandles.dropArguments(MethodHandles.constant(boolean.class, true), 0, Object.class),
+                    FUNCTION.bindTo(route.getFunction())
+            );
+        }
+        return route.hasCondition() ? CONDITION.bindTo(route.getCondition()) : FUNCTION.bindTo(route.getFunction());
+    }
+
+    private static MethodHandle constant(final int id) {
+        return MethodHandles.dropArguments(MethodHandles.constant(int.class, id), 0, Object.class);
+    }
+
+    private static <T> int indexed(final TransitionSet<T> transitions, final Map<Route<?>, Integer> ids, final T answer) {
+        final Route<T> route = transitions.forwardIndexed(answer);
+        final Integer result = route == null ? null : ids.get(route);
+        return result == null ? NONE : result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Optional<FlowItem<?, ?>> answerOf(final FlowItem<T, ?> item, final Object answer) {
+        return item.answer((T) answer);
+    }
+
+    private static boolean isTrue(final Object result) {
+        return (Boolean) result;
+    }
+
+    private static boolean isNull(final Object answer) {
+        return answer == null;
+    }
+
+    private static boolean isFound(final int id) {
+        return id != NONE;
+    }
+
+    @Override
+    public String toString() {
+        return "FlowMachine{" +
+                "flow=" + flow +
+                ", type=" + dispatch.type() +
+                '}';
+    }
+}
@@ -0,0 +1,121 @@
+package berlin.yuna.survey.model.types;
+
+import berlin.yuna.survey.model.EqualsCondition;
+import berlin.yuna.survey.model.InCondition;
+import berlin.yuna.survey.model.RangeCondition;
+import berlin.yuna.survey.model.Route;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@link RouteIndex} resolves routes with declarative conditions without evaluating them one by one.
+ * {@link EqualsCondition} and {@link InCondition} are resolved by a hash lookup, non overlapping
+ * {@link RangeCondition}s by a binary search on a sorted interval table.
+ * Routes which can't be indexed are kept as {@link RouteIndex#remaining()} in their original order.
+ *
+ * @param <T> answer type
+ */
+final class RouteIndex<T> {
+
+    private final Map<Object, Route<T>> values;
+    private final long[] mins;
+    private final long[] maxs;
+    private final Route<T>[] ranges;
+    private final Route<T>[] remaining;
+
+    @SuppressWarnings("unchecked")
+    RouteIndex(final List<Route<T>> conditional) {
+        final Map<Object, Route<T>> valueIndex = new HashMap<>();
+        final List<Route<T>> rangeRoutes = new ArrayList<>();
+        final List<Route<T>> others = new ArrayList<>();
+        for (Route<T> route : conditional) {
+            if (route.hasFunction() || !route.hasCondition()) {
+                others.add(route);
+            } else if (route.getCondition() instanceof EqualsCondition<?> condition) {
+                valueIndex.putIfAbsent(condition.value(), route);
+            } else if (route.getCondition() instanceof InCondition<?> condition) {
+                condition.values().forEach(value -> valueIndex.putIfAbsent(value, route));
+            } else if (route.getCondition() instanceof RangeCondition<?>) {
+                rangeRoutes.add(route);
+            } else {
+                others.add(route);
+            }
+        }
+        rangeRoutes.sort(Comparator.comparingLong(route -> range(route).min()));
+        if (overlaps(rangeRoutes)) {
+            others.addAll(rangeRoutes);
+            rangeRoutes.clear();
+        }
+        this.values = valueIndex.isEmpty() ? null : valueIndex;
+        this.ranges = toArray(rangeRoutes);
+        this.mins = rangeRoutes.stream().mapToLong(route -> range(route).min()).toArray();
+        this.maxs = rangeRoutes.stream().mapToLong(route -> range(route).max()).toArray();
+        this.remaining = toArray(others);
+    }
+
+    /**
+     * @param answer answer to resolve
+     * @return indexed route which matches the answer or {@code null}
+     */
+    Route<T> find(final Object answer) {
+        if (values != null) {
+            final Route<T> result = values.get(answer);
+            if (result != null) {
+                return result;
+            }
+        }
+        return ranges.length == 0 || !(answer instanceof Number number) ? null : findRange(number);
+    }
+
+    /**
+     * @return {@code true} if no route is indexed
+     */
+    boolean isEmpty() {
+        return values == null && ranges.length == 0;
+    }
+
+    /**
+     * @return conditional routes which are not indexed - must not be modified
+     */
+    Route<T>[] remaining() {
+        return remaining;
+    }
+
+    private Route<T> findRange(final Number number) {
+        int low = 0;
+        int high = mins.length - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            if (RangeCondition.compare(number, mins[mid]) < 0) {
+                high = mid - 1;
+            } else if (RangeCondition.compare(number, maxs[mid]) > 0) {
+                low = mid + 1;
+            } else {
+                return ranges[mid];
+            }
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Route<T>[] toArray(final List<Route<T>> routes) {
+        return routes.toArray((Route<T>[]) new Route<?>[0]);
+    }
+
+    private static boolean overlaps(final List<? extends Route<?>> sorted) {
+        for (int i = 1; i < sorted.size(); i++) {
+            if (range(sorted.get(i)).min() <= range(sorted.get(i - 1)).max()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static RangeCondition<?> range(final Route<?> route) {
+        return (RangeCondition<?>) route.getCondition();
+    }
+}
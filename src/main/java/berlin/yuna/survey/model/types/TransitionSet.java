@@ -3,47 +3,118 @@ package berlin.yuna.survey.model.types;
 import berlin.yuna.survey.model.Condition;
 import berlin.yuna.survey.model.Route;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.function.Function;
-import java.util.function.Predicate;
-import java.util.stream.Stream;
 
 import static berlin.yuna.survey.model.exception.QuestionNotFoundException.itemNotFound;
+import static java.util.Collections.unmodifiableSet;
 import static java.util.stream.Collectors.toSet;
 
 @SuppressWarnings({"unused", "UnusedReturnValue"})
 public class TransitionSet<T> extends HashSet<Route<T>> {
 
     private final FlowItem<T, ?> flowItem;
+    private transient volatile RouteCache<T> cache;
 
     public TransitionSet(final FlowItem<T, ?> flowItem) {
         this.flowItem = flowItem;
     }
 
+    /**
+     * @return copy of all forward routes
+     */
     public Set<Route<T>> forwardRoutes() {
-        return getRouteStream(Route::isForwardFlow).collect(toSet());
+        return new HashSet<>(routeCache().forwardRoutes);
     }
 
+    /**
+     * @return copy of all backward routes
+     */
     public Set<Route<T>> backwardRoutes() {
-        return getRouteStream(Route::isBackwardFlow).collect(toSet());
+        return new HashSet<>(routeCache().backwardRoutes);
     }
 
+    /**
+     * @return copy of all forward targets
+     */
     public Set<FlowItem<?, ?>> forwardTargets() {
-        return getRouteStream(Route::isForwardFlow).map(Route::target).collect(toSet());
+        return new HashSet<>(routeCache().forwardTargets);
     }
 
+    /**
+     * @return copy of all backward targets
+     */
     public Set<FlowItem<?, ?>> backwardTargets() {
-        return getRouteStream(Route::isBackwardFlow).map(Route::target).collect(toSet());
+        return new HashSet<>(routeCache().backwardTargets);
     }
 
-    private Stream<Route<T>> getRouteStream(final Predicate<Route<T>> filter) {
-        return stream().filter(filter);
+    /**
+     * @return unmodifiable view of all forward routes
+     */
+    Set<Route<T>> forwardRouteView() {
+        return routeCache().forwardRoutes;
+    }
+
+    /**
+     * @param answer answer to resolve
+     * @return forward route with an indexed declarative condition which matches the answer or {@code null}
+     */
+    Route<T> forwardIndexed(final T answer) {
+        return routeCache().forwardIndex.find(answer);
+    }
+
+    /**
+     * @return {@code true} if any forward route has an indexed declarative condition
+     */
+    boolean hasForwardIndex() {
+        return !routeCache().forwardIndex.isEmpty();
+    }
+
+    /**
+     * @return forward routes with condition which are not indexed - must not be modified
+     */
+    Route<T>[] forwardConditional() {
+        return routeCache().forwardIndex.remaining();
+    }
+
+    /**
+     * @return first forward route without condition or {@code null}
+     */
+    Route<T> forwardDefault() {
+        return routeCache().forwardDefault;
+    }
+
+    /**
+     * @return backward routes with condition - must not be modified
+     */
+    Route<T>[] backwardConditional() {
+        return routeCache().backwardConditional;
+    }
+
+    /**
+     * @return first backward route without condition or {@code null}
+     */
+    Route<T> backwardDefault() {
+        return routeCache().backwardDefault;
+    }
+
+    private RouteCache<T> routeCache() {
+        RouteCache<T> result = cache;
+        if (result == null) {
+            result = new RouteCache<>(this);
+            cache = result;
+        }
+        return result;
     }
 
     protected FlowItem<T, ?> backCondition(final Condition<T> condition, final Function<T, Boolean> function) {
+        flowItem.assertModifiable();
         removeItemsWithoutCondition(condition, function, true);
         add(new Route<>(null, function, condition, true));
         return flowItem;
@@ -53,19 +124,102 @@ public class TransitionSet<T> extends HashSet<Route<T>> {
         if (target == null) {
             throw itemNotFound(null, flowItem.label());
         }
+        flowItem.assertModifiable();
+        target.assertModifiable();
 
         removeItemsWithoutCondition(condition, function, false);
 
         final I flowTarget = flowItem.find(target).orElse(target);
+        merge(flowTarget, target);
+        return link(flowTarget, condition, function);
+    }
 
-        //merge
-        flowTarget.transitions().addRoutes(target.transitions());
-        target.parents().forEach(flowTarget::addParent);
-
+    /**
+     * Adds a route to an already resolved target without searching the flow
+     *
+     * @param target    resolved target of the flow
+     * @param condition nullable condition
+     * @param function  nullable condition function
+     * @return {@code target} object
+     */
+    <I extends FlowItem<?, ?>> I link(final I target, final Condition<T> condition, final Function<T, Boolean> function) {
         //add route to patent and child
-        add(new Route<>(flowTarget, function, condition, false));
-        flowTarget.addParent(flowItem);
-        return flowTarget;
+        add(new Route<>(target, function, condition, false));
+        target.addParent(flowItem);
+        return target;
+    }
+
+    /**
+     * Merges the routes and parents of a duplicate into the flow target
+     *
+     * @param flowTarget target which is part of the flow
+     * @param duplicate  item with the same label
+     */
+    static void merge(final FlowItem<?, ?> flowTarget, final FlowItem<?, ?> duplicate) {
+        if (flowTarget != duplicate) {
+            flowTarget.transitions().addRoutes(duplicate.transitions());
+            duplicate.parents().forEach(flowTarget::addParent);
+        }
+    }
+
+    void removeUnconditionalRoutes() {
+        removeItemsWithoutCondition(null, null, false);
+    }
+
+    @Override
+    public boolean add(final Route<T> route) {
+        flowItem.assertModifiable();
+        if (route.hasTarget()) {
+            route.target().assertModifiable();
+        }
+        final boolean result = super.add(route);
+        if (result) {
+            if (route.hasTarget()) {
+                flowItem.graph().merge(route.target().graph());
+            }
+            modified();
+        }
+        return result;
+    }
+
+    @Override
+    public boolean remove(final Object route) {
+        flowItem.assertModifiable();
+        final boolean result = super.remove(route);
+        if (result) {
+            modified();
+        }
+        return result;
+    }
+
+    @Override
+    public void clear() {
+        flowItem.assertModifiable();
+        super.clear();
+        modified();
+    }
+
+    @Override
+    public Iterator<Route<T>> iterator() {
+        final Iterator<Route<T>> iterator = super.iterator();
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public Route<T> next() {
+                return iterator.next();
+            }
+
+            @Override
+            public void remove() {
+                flowItem.assertModifiable();
+                iterator.remove();
+                modified();
+            }
+        };
     }
 
     @SuppressWarnings("unchecked")
@@ -73,6 +227,11 @@ public class TransitionSet<T> extends HashSet<Route<T>> {
         addAll((Collection<? extends Route<T>>) transitionSet);
     }
 
+    private void modified() {
+        cache = null;
+        flowItem.graph().modified();
+    }
+
     private void removeItemsWithoutCondition(final Condition<T> condition, final Function<T, ?> function, final boolean isBack) {
         if (condition == null && function == null) {
             final Set<Route<T>> connections = stream().filter(route -> isBack? route.isBackwardFlow() : route.isForwardFlow()).filter(Route::hasNoCondition).collect(toSet());
@@ -98,4 +257,50 @@ public class TransitionSet<T> extends HashSet<Route<T>> {
         result = 31 * result + (flowItem != null ? flowItem.hashCode() : 0);
         return result;
     }
+
+    /**
+     * Immutable snapshot of the routes - rebuilt only after the {@link TransitionSet} was modified
+     */
+    private static final class RouteCache<T> {
+
+        private final Set<Route<T>> forwardRoutes;
+        private final Set<Route<T>> backwardRoutes;
+        private final Set<FlowItem<?, ?>> forwardTargets;
+        private final Set<FlowItem<?, ?>> backwardTargets;
+        private final RouteIndex<T> forwardIndex;
+        private final Route<T>[] backwardConditional;
+        private final Route<T> forwardDefault;
+        private final Route<T> backwardDefault;
+
+        private RouteCache(final TransitionSet<T> transitions) {
+            final List<Route<T>> forward = new ArrayList<>();
+            final List<Route<T>> backward = new ArrayList<>();
+            for (Route<T> route : transitions) {
+                (route.isForwardFlow() ? forward : backward).add(route);
+            }
+            forwardRoutes = unmodifiableSet(new HashSet<>(forward));
+            backwardRoutes = unmodifiableSet(new HashSet<>(backward));
+            forwardTargets = targetsOf(forward);
+            backwardTargets = targetsOf(backward);
+            forwardIndex = new RouteIndex<>(List.of(toArray(forward, true)));
+            backwardConditional = toArray(backward, true);
+            forwardDefault = first(toArray(forward, false));
+            backwardDefault = first(toArray(backward, false));
+        }
+
+        private static <T> Set<FlowItem<?, ?>> targetsOf(final List<Route<T>> routes) {
+            final Set<FlowItem<?, ?>> result = new HashSet<>();
+            routes.forEach(route -> result.add(route.target()));
+            return unmodifiableSet(result);
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> Route<T>[] toArray(final List<Route<T>> routes, final boolean conditional) {
+            return routes.stream().filter(route -> route.hasAnyCondition() == conditional).toArray(Route[]::new);
+        }
+
+        private static <T> Route<T> first(final Route<T>[] routes) {
+            return routes.length == 0 ? null : routes[0];
+        }
+    }
 }
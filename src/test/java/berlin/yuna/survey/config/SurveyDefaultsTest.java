@@ -0,0 +1,61 @@
+package berlin.yuna.survey.config;
+
+import berlin.yuna.survey.logic.Survey;
+import berlin.yuna.survey.model.types.Question;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static berlin.yuna.survey.model.ContextExchange.contextOf;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@Tag("UnitTest")
+class SurveyDefaultsTest {
+
+    private static final String Q1 = "Q1";
+    private static final String Q2 = "Q2";
+
+    @Test
+    @DisplayName("Clock and id source")
+    void clockAndIdSourceShouldBePluggable() {
+        final LocalDateTime fixed = LocalDateTime.of(2020, 1, 1, 0, 0);
+        final TimeSource previousClock = SurveyDefaults.timeSource();
+        final IdSource previousIds = SurveyDefaults.idSource();
+        try {
+            SurveyDefaults.timeSource(() -> fixed);
+            SurveyDefaults.idSource(() -> new UUID(0, 1));
+            final Survey survey = Survey.init(Question.of(Q1).target(Question.of(Q2))).answer("a1");
+            assertThat(survey.getHistory().get(0).getCreatedAt(), is(equalTo(fixed)));
+            assertThat(contextOf("payload").id(), is(equalTo(new UUID(0, 1))));
+        } finally {
+            SurveyDefaults.timeSource(previousClock);
+            SurveyDefaults.idSource(previousIds);
+        }
+        assertThat(SurveyDefaults.timeSource(), is(sameInstance(previousClock)));
+        assertThat(SurveyDefaults.timeSource().now().getYear() > 2020, is(true));
+        final TimeSource clock = TimeSource.monotonic();
+        final LocalDateTime first = clock.now();
+        assertThat(clock.now().isBefore(first), is(false));
+        assertThat(IdSource.timeOrdered().next().version(), is(7));
+        assertThat(contextOf("payload").payload("other").payload(), is(equalTo("other")));
+        assertThat(contextOf("payload").get("key", String.class).isPresent(), is(false));
+    }
+
+    @Test
+    @DisplayName("Snapshot types")
+    void snapshotTypesShouldBeAllowlisted() {
+        assertThat(SurveyDefaults.snapshotType(BigDecimal.class.getName()), is(equalTo(BigDecimal.class)));
+        assertThat(SurveyDefaults.snapshotType(Thread.class.getName()), is(nullValue()));
+        assertThat(SurveyDefaults.snapshotType((String) null), is(nullValue()));
+        assertThrows(IllegalArgumentException.class, () -> SurveyDefaults.snapshotType((Class<?>) null));
+    }
+}
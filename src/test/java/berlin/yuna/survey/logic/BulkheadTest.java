@@ -0,0 +1,47 @@
+package berlin.yuna.survey.logic;
+
+import berlin.yuna.survey.model.AsyncCondition;
+import berlin.yuna.survey.model.types.Question;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static berlin.yuna.survey.logic.SurveyTest.END;
+import static berlin.yuna.survey.logic.SurveyTest.Q1;
+import static berlin.yuna.survey.logic.SurveyTest.START;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+@Tag("UnitTest")
+class BulkheadTest {
+
+    @Test
+    @DisplayName("Bulkhead limits remote conditions")
+    void bulkheadShouldLimitConcurrentCalls() {
+        try (Bulkhead bulkhead = Bulkhead.of(1)) {
+            final CountDownLatch release = new CountDownLatch(1);
+            final CompletableFuture<Boolean> blocked = bulkhead.supply(() -> {
+                try {
+                    return release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    return false;
+                }
+            });
+            final Question remote = Question.of(START);
+            remote.target(Question.of(Q1), AsyncCondition.<String>of("remote", Duration.ofSeconds(5), false, answer -> bulkhead.supply(() -> true)));
+            remote.target(Question.of(END));
+            assertThat(bulkhead.limit(), is(1));
+            assertThat(bulkhead.available(), is(0));
+            assertThat(Survey.init(remote).answerAsync("x").join().get(), is(equalTo(Question.of(END))));
+            release.countDown();
+            assertThat(blocked.join(), is(true));
+            assertThat(bulkhead.available(), is(1));
+        }
+    }
+}
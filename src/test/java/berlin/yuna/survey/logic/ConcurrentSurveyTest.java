@@ -0,0 +1,123 @@
+package berlin.yuna.survey.logic;
+
+import berlin.yuna.survey.model.AsyncCondition;
+import berlin.yuna.survey.model.types.Question;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ConcurrentModificationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static berlin.yuna.survey.logic.SurveyTest.END;
+import static berlin.yuna.survey.logic.SurveyTest.Q1;
+import static berlin.yuna.survey.logic.SurveyTest.START;
+import static berlin.yuna.survey.model.ContextExchange.contextOf;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@Tag("UnitTest")
+class ConcurrentSurveyTest {
+
+    @Test
+    @DisplayName("Concurrent writers")
+    void concurrentSurveyShouldSerializeWriters() throws InterruptedException {
+        final AtomicInteger conditions = new AtomicInteger(0);
+        final Question flow = Question.of("C0");
+        Question last = flow;
+        for (int i = 1; i <= 100; i++) {
+            last = last.targetGet(Question.of("C" + i), answer -> conditions.incrementAndGet() > 0);
+        }
+        final ConcurrentSurvey survey = ConcurrentSurvey.init(flow);
+        final PersistentSurvey start = survey.state();
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 100; i++) {
+            executor.execute(() -> survey.answer("x"));
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS), is(true));
+
+        assertThat(survey.get(), is(equalTo(last)));
+        assertThat(conditions.get(), is(100));
+        assertThat(survey.getHistory(), hasSize(101));
+        assertThat(start.get(), is(equalTo(flow)));
+        assertThat(survey.toSurvey().get(), is(equalTo(last)));
+    }
+
+    @Test
+    @DisplayName("Concurrent writers keep keys and dispatch")
+    void concurrentSurveyShouldKeepKeysAndDispatch() {
+        final Question flow = Question.of(START);
+        flow.targetGet(Question.of(Q1)).target(Question.of(END));
+        final ConcurrentSurvey survey = ConcurrentSurvey.of(Survey.init(flow).compiledDispatch(true));
+
+        final PersistentSurvey answered = survey.answer(contextOf("a").idempotencyKey("request-1"));
+        assertThat(survey.answer(contextOf("b").idempotencyKey("request-1")), is(sameInstance(answered)));
+        assertThat(survey.isProcessed("request-1"), is(true));
+        assertThat(survey.getVersion(), is(1L));
+        assertThat(survey.get(), is(equalTo(Question.of(Q1))));
+        assertThat(survey.toSurvey().hasCompiledDispatch(), is(true));
+        assertThat(survey.toSurvey().isProcessed("request-1"), is(true));
+    }
+
+    @Test
+    @DisplayName("Concurrent async answers")
+    void concurrentAnswerAsyncShouldOnlyPublishOnUnchangedState() {
+        final CompletableFuture<Boolean> gate = new CompletableFuture<>();
+        final Question flow = Question.of(START);
+        flow.target(Question.of(Q1), AsyncCondition.<String>of("remote", Duration.ofSeconds(5), false, answer -> answer.equals("x") ? gate : CompletableFuture.completedFuture(false)));
+        flow.target(Question.of(END));
+
+        final ConcurrentSurvey published = ConcurrentSurvey.init(flow);
+        final CompletableFuture<PersistentSurvey> pending = published.answerAsync("x", null, Runnable::run);
+        assertThat(pending.isDone(), is(false));
+        gate.complete(true);
+        assertThat(pending.join().get(), is(equalTo(Question.of(Q1))));
+        assertThat(published.state(), is(sameInstance(pending.join())));
+        assertThat(published.getVersion(), is(1L));
+
+        final CompletableFuture<Boolean> slow = new CompletableFuture<>();
+        final Question raced = Question.of(START);
+        raced.target(Question.of(Q1), AsyncCondition.<String>of("remote", Duration.ofSeconds(5), false, answer -> answer.equals("x") ? slow : CompletableFuture.completedFuture(false)));
+        raced.target(Question.of(END));
+        final ConcurrentSurvey survey = ConcurrentSurvey.init(raced);
+        final CompletableFuture<PersistentSurvey> stale = survey.answerAsync("x", null, Runnable::run);
+        assertThat(survey.answer("y").get(), is(equalTo(Question.of(END))));
+        slow.complete(true);
+        final CompletionException error = assertThrows(CompletionException.class, stale::join);
+        assertThat(error.getCause(), is(instanceOf(ConcurrentModificationException.class)));
+        assertThat(survey.get(), is(equalTo(Question.of(END))));
+        assertThat(survey.getVersion(), is(1L));
+    }
+
+    @Test
+    @DisplayName("Concurrent transitions tell if they were blocked")
+    void tryTransitToShouldPublishOutcome() {
+        final Question flow = Question.of(START);
+        flow.targetGet(Question.of(Q1).onBack(answer -> false)).target(Question.of(END));
+        final ConcurrentSurvey survey = ConcurrentSurvey.init(flow);
+        survey.answer("a0");
+        survey.answer("a1");
+
+        final PersistentSurvey.Transition blocked = survey.tryTransitTo(START);
+        assertThat(blocked.allowed(), is(false));
+        assertThat(blocked.survey(), is(sameInstance(survey.state())));
+        assertThat(survey.get(), is(equalTo(Question.of(END))));
+
+        final PersistentSurvey.Transition allowed = survey.tryTransitTo(Question.of(Q1), null);
+        assertThat(allowed.allowed(), is(true));
+        assertThat(survey.state(), is(sameInstance(allowed.survey())));
+        assertThat(survey.get(), is(equalTo(Question.of(Q1))));
+    }
+}
@@ -0,0 +1,48 @@
+package berlin.yuna.survey.logic;
+
+import berlin.yuna.survey.model.Evaluation;
+import berlin.yuna.survey.model.types.Question;
+import berlin.yuna.survey.model.types.QuestionInt;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static berlin.yuna.survey.logic.SurveyTest.END;
+import static berlin.yuna.survey.logic.SurveyTest.Q1;
+import static berlin.yuna.survey.logic.SurveyTest.Q2;
+import static berlin.yuna.survey.logic.SurveyTest.Q3;
+import static berlin.yuna.survey.logic.SurveyTest.START;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+
+@Tag("UnitTest")
+class FlowEvaluatorTest {
+
+    @Test
+    @DisplayName("Evaluate complete submissions")
+    void evaluatorShouldValidateSubmissions() {
+        final Question flow = Question.of(START);
+        flow.target(QuestionInt.of(Q1).target(Question.of(END)), answer -> answer.equals("1"));
+        flow.target(Question.of(Q2).target(Question.of(Q3)));
+
+        final Evaluation completed = FlowEvaluator.evaluate(flow, Map.of(START, "1", Q1, "42", END, "done"));
+        assertThat(completed.isCompleted(), is(true));
+        assertThat(completed.last(), is(equalTo(Question.of(END))));
+        assertThat(completed.steps(), is(3));
+        assertThat(FlowEvaluator.evaluate(flow, Map.of(START, "1", Q1, "42")).status(), is(Evaluation.Status.MISSING_ANSWER));
+        assertThat(FlowEvaluator.evaluate(flow, Map.of(START, "1", Q1, "x")).status(), is(Evaluation.Status.INVALID_ANSWER));
+        assertThat(FlowEvaluator.evaluate(flow, Map.of(START, "2", Q2, "x", Q3, "y")).last(), is(equalTo(Question.of(Q3))));
+
+        final List<Evaluation> results = FlowEvaluator.evaluate(flow, IntStream.range(0, 1000)
+                .mapToObj(i -> Map.of(START, String.valueOf(i % 2 + 1), Q1, "1", Q2, "x", Q3, "y", END, "e"))).toList();
+        assertThat(results, hasSize(1000));
+        assertThat(results.stream().filter(Evaluation::isCompleted).count(), is(1000L));
+        assertThat(results.get(1).last(), is(equalTo(Question.of(Q3))));
+    }
+}
@@ -0,0 +1,55 @@
+package berlin.yuna.survey.logic;
+
+import berlin.yuna.survey.model.FlowStats;
+import berlin.yuna.survey.model.exception.FlowRuntimeException;
+import berlin.yuna.survey.model.types.Question;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static berlin.yuna.survey.logic.SurveyTest.END;
+import static berlin.yuna.survey.logic.SurveyTest.Q1;
+import static berlin.yuna.survey.logic.SurveyTest.Q2;
+import static berlin.yuna.survey.logic.SurveyTest.START;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@Tag("UnitTest")
+class FlowRegistryTest {
+
+    @Test
+    @DisplayName("Flow registry")
+    void flowRegistryShouldShareFrozenFlow() {
+        final FlowRegistry registry = new FlowRegistry();
+        final Question flow = Question.of(START);
+        flow.targetGet(Question.of(Q1)).targetGet(Question.of(END));
+        registry.register("example", "1", flow);
+        registry.register("example", "1", flow);
+
+        final Survey first = registry.init("example", "1").answer("a0");
+        final Survey second = registry.init("example", "1");
+        assertThat(first.get(), is(equalTo(Question.of(Q1))));
+        assertThat(second.get(), is(equalTo(Question.of(START))));
+        assertThat(first.getFirst(), is(sameInstance(second.getFirst())));
+        assertThat(flow.isFrozen(), is(true));
+        assertThrows(FlowRuntimeException.class, () -> flow.target(Question.of(Q2)));
+        assertThrows(FlowRuntimeException.class, () -> Question.of(Q2).target(flow));
+        assertThrows(FlowRuntimeException.class, () -> registry.register("example", "1", Question.of(START)));
+        assertThrows(FlowRuntimeException.class, () -> registry.init("example", "2"));
+
+        final FlowStats stats = registry.stats("example", "1").orElseThrow();
+        assertThat(stats.nodes(), is(3));
+        assertThat(stats.routes(), is(2));
+        assertThat(stats.sessionsStarted(), is(2L));
+        registry.init("example", "1");
+        assertThat(registry.stats("example", "1").orElseThrow().sessionsStarted(), is(3L));
+
+        final Question other = Question.of(START);
+        assertThrows(FlowRuntimeException.class, () -> registry.register("example", "1", other));
+        assertThat(other.isFrozen(), is(false));
+        assertThat(stats.estimatedBytes() > 0, is(true));
+    }
+}
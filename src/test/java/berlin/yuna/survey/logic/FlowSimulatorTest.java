@@ -0,0 +1,73 @@
+package berlin.yuna.survey.logic;
+
+import berlin.yuna.survey.model.FlowOutcome;
+import berlin.yuna.survey.model.HistoryItem;
+import berlin.yuna.survey.model.types.Question;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static berlin.yuna.survey.logic.SurveyTest.END;
+import static berlin.yuna.survey.logic.SurveyTest.Q1;
+import static berlin.yuna.survey.logic.SurveyTest.Q2;
+import static berlin.yuna.survey.logic.SurveyTest.Q3;
+import static berlin.yuna.survey.logic.SurveyTest.Q4;
+import static berlin.yuna.survey.logic.SurveyTest.START;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+
+@Tag("UnitTest")
+class FlowSimulatorTest {
+
+    @Test
+    @DisplayName("Simulate reachable outcomes")
+    void simulatorShouldFindReachableEnds() {
+        final Question flow = Question.of(START);
+        flow.target(Question.of(Q1).target(Question.of(END)), answer -> answer.equals("1"));
+        final Question q3 = flow.targetGet(Question.of(Q2)).targetGet(Question.of(Q3));
+        q3.target(Question.of(Q4)).target(Question.of(Q2), answer -> answer.equals("loop"));
+
+        final Survey survey = Survey.init(flow);
+        final List<FlowOutcome> outcomes = FlowSimulator.of(flow).simulate(survey);
+        assertThat(outcomes, hasSize(2));
+        assertThat(outcomes.get(0).end(), is(equalTo(Question.of(END))));
+        assertThat(outcomes.get(0).minSteps(), is(3));
+        assertThat(outcomes.get(0).maxSteps(), is(3));
+        assertThat(outcomes.get(1).end(), is(equalTo(Question.of(Q4))));
+        assertThat(outcomes.get(1).shortestPath(), is(equalTo(List.of(flow, Question.of(Q2), q3, Question.of(Q4)))));
+        assertThat(outcomes.get(1).isBounded(), is(false));
+        assertThat(survey.get(), is(equalTo(flow)));
+        assertThat(survey.getHistorySize(), is(1));
+
+        final Question branch = Question.of(Q4);
+        branch.target(Question.of(Q2), answer -> answer.equals("a"));
+        branch.target(Question.of(Q3));
+        final Question linear = Question.of(START);
+        linear.target(branch);
+        final Survey resumed = Survey.restore(linear, linear, List.of(
+                new HistoryItem(START, "s", null, HistoryItem.State.CURRENT),
+                new HistoryItem(Q4, "a", null, HistoryItem.State.ANSWERED),
+                new HistoryItem(Q2, "b", null, HistoryItem.State.ANSWERED)
+        ), 0);
+        final FlowSimulator simulator = FlowSimulator.of(linear);
+        assertThat(simulator.simulate(linear), hasSize(2));
+        final List<FlowOutcome> known = simulator.simulate(resumed);
+        assertThat(known, hasSize(1));
+        assertThat(known.get(0).shortestPath(), is(equalTo(List.of(linear, branch, Question.of(Q2)))));
+        assertThat(known.get(0).maxSteps(), is(3));
+        assertThat(simulator.simulate(linear), hasSize(2));
+
+        final Question chain = Question.of("C0");
+        Question last = chain;
+        for (int i = 1; i < 2000; i++) {
+            last = last.targetGet(Question.of("C" + i));
+        }
+        final List<FlowOutcome> result = FlowSimulator.of(chain).simulate(chain);
+        assertThat(result.get(0).minSteps(), is(2000));
+        assertThat(result.get(0).maxSteps(), is(2000));
+    }
+}
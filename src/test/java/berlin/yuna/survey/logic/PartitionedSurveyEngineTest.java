@@ -0,0 +1,68 @@
+package berlin.yuna.survey.logic;
+
+import berlin.yuna.survey.model.types.FlowItem;
+import berlin.yuna.survey.model.types.Question;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+
+import static berlin.yuna.survey.logic.SurveyTest.END;
+import static berlin.yuna.survey.logic.SurveyTest.Q1;
+import static berlin.yuna.survey.logic.SurveyTest.START;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@Tag("UnitTest")
+class PartitionedSurveyEngineTest {
+
+    @Test
+    @DisplayName("Partitioned survey engine")
+    void partitionedEngineShouldOwnSessionsPerThread() {
+        final Question flow = Question.of(START);
+        flow.targetGet(Question.of(Q1)).targetGet(Question.of(END));
+        try (PartitionedSurveyEngine engine = new PartitionedSurveyEngine(4)) {
+            final List<CompletableFuture<FlowItem<?, ?>>> results = new ArrayList<>();
+            for (int session = 0; session < 100; session++) {
+                engine.start("session-" + session, flow);
+                engine.answer("session-" + session, "a0");
+                results.add(engine.answer("session-" + session, "a1"));
+            }
+            results.forEach(result -> assertThat(result.join(), is(equalTo(Question.of(END)))));
+            assertThat(engine.size(), is(100));
+            assertThat(engine.ask("session-1", survey -> Thread.currentThread().getName()).join(),
+                    is(equalTo("survey-partition-" + engine.partition("session-1"))));
+            assertThat(engine.ask("unknown", Survey::get).handle((result, error) -> error != null).join(), is(true));
+            long processed = 0;
+            for (int i = 0; i < engine.partitions(); i++) {
+                processed += engine.processed(i);
+            }
+            assertThat(processed, is(greaterThanOrEqualTo(300L)));
+            assertThat(engine.stop("session-0").join().map(Survey::get).orElse(null), is(equalTo(Question.of(END))));
+        }
+    }
+
+    @Test
+    @DisplayName("Partitioned survey engine after close")
+    void partitionedEngineShouldFailRequestsAfterClose() {
+        final Question flow = Question.of(START);
+        flow.target(Question.of(END));
+        final PartitionedSurveyEngine engine = new PartitionedSurveyEngine(2);
+        assertThat(engine.start("session", flow).join(), is(true));
+        engine.close();
+
+        final CompletableFuture<FlowItem<?, ?>> late = engine.answer("session", "x");
+        final CompletionException error = assertThrows(CompletionException.class, late::join);
+        assertThat(error.getCause(), is(instanceOf(RejectedExecutionException.class)));
+        assertThat(engine.size(), is(1));
+    }
+}
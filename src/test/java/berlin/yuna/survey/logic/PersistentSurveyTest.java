@@ -0,0 +1,142 @@
+package berlin.yuna.survey.logic;
+
+import berlin.yuna.survey.model.types.Question;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static berlin.yuna.survey.logic.SurveyTest.END;
+import static berlin.yuna.survey.logic.SurveyTest.Q1;
+import static berlin.yuna.survey.logic.SurveyTest.Q2;
+import static berlin.yuna.survey.logic.SurveyTest.START;
+import static berlin.yuna.survey.model.ContextExchange.contextOf;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+@Tag("UnitTest")
+class PersistentSurveyTest {
+
+    @Test
+    @DisplayName("Persistent fork")
+    void persistentSurveyShouldShareHistoryBetweenForks() {
+        final Question flow = Question.of(START);
+        flow.target(Question.of(Q1).target(Question.of(END)), answer -> answer.equals("1"));
+        flow.target(Question.of(Q2).target(Question.of(END)));
+
+        final PersistentSurvey base = PersistentSurvey.init(flow);
+        final PersistentSurvey left = base.fork().answer("1");
+        final PersistentSurvey right = base.fork().answer("2").answer("x");
+        assertThat(base.get(), is(equalTo(flow)));
+        assertThat(base.getHistorySize(), is(1));
+        assertThat(left.get(), is(equalTo(Question.of(Q1))));
+        assertThat(right.get(), is(equalTo(Question.of(END))));
+        assertThat(right.isEnded(), is(false));
+        assertThat(right.answer("end").isEnded(), is(true));
+
+        final Survey survey = Survey.init(flow).answer("2").answer("x");
+        assertThat(right.getHistory(), is(equalTo(survey.getHistory())));
+        assertThat(right.toSurvey().getHistory(), is(equalTo(survey.getHistory())));
+        assertThat(PersistentSurvey.of(survey).answer("y").get(), is(equalTo(Question.of(END))));
+
+        final PersistentSurvey back = right.transitTo(START);
+        assertThat(back.get(), is(equalTo(flow)));
+        assertThat(back.getDraftCount(), is(1));
+        assertThat(right.getDraftCount(), is(0));
+        assertThat(back.transitTo(END).get(), is(equalTo(Question.of(END))));
+        final PersistentSurvey strict = right.answer("end").autoBackTransition(false);
+        assertThat(strict.transitTo(START), is(sameInstance(strict)));
+    }
+
+    @Test
+    @DisplayName("Persistent history with renumbered ids")
+    void persistentSurveyShouldSurviveRenumberedIds() {
+        final Question flow = Question.of(START);
+        flow.target(Question.of(Q1));
+        final PersistentSurvey answered = PersistentSurvey.init(flow).answer("a");
+        final int startId = flow.compile().id(START);
+
+        final Question other = Question.of("A1");
+        other.targetGet(Question.of("A2")).targetGet(Question.of("A3")).target(Question.of("A4"));
+        flow.get(Q1).orElseThrow().targetGet(other);
+        assertThat(flow.compile().id(START), is(not(startId)));
+        assertThat(answered.getAnswer(START).orElseThrow(), is(equalTo("a")));
+        assertThat(answered.answer("b").get(), is(equalTo(other)));
+        assertThat(answered.answer("b").transitTo(START).getDraftCount(), is(1));
+    }
+
+    @Test
+    @DisplayName("Persistent survey shares the transition core")
+    void persistentSurveyShouldKeepKeysDispatchAndCheckpoints() {
+        final Question q1 = Question.of(Q1);
+        final Question q2 = Question.of(Q2);
+        q1.target(q2);
+        q2.target(q1, answer -> answer.equals("loop"));
+        q2.target(Question.of(END));
+
+        PersistentSurvey looped = PersistentSurvey.init(q1);
+        for (int i = 0; i < 100; i++) {
+            looped = looped.answer("a").answer("loop");
+        }
+        assertThat(looped.get(), is(equalTo(q1)));
+        assertThat(looped.getHistorySize(), is(2));
+        assertThat(looped.checkpoints(), is(1));
+        assertThat(looped.transitTo(Q2).get(), is(equalTo(q2)));
+        assertThat(looped.transitTo(Q2).checkpoints(), is(0));
+
+        final PersistentSurvey keyed = PersistentSurvey.init(q1).compiledDispatch(true).idempotencyKeys(2)
+                .answer(contextOf("a").idempotencyKey("request-1"));
+        assertThat(keyed.answer(contextOf("a").idempotencyKey("request-1")), is(sameInstance(keyed)));
+        assertThat(keyed.isProcessed("request-1"), is(true));
+        final PersistentSurvey rotated = keyed.answer(contextOf("loop").idempotencyKey("request-2")).answer(contextOf("a").idempotencyKey("request-3"));
+        assertThat(rotated.isProcessed("request-1"), is(false));
+        assertThat(rotated.isProcessed("request-3"), is(true));
+
+        final Survey survey = rotated.toSurvey();
+        assertThat(survey.hasCompiledDispatch(), is(true));
+        assertThat(survey.getIdempotencyKeys(), is(2));
+        assertThat(survey.isProcessed("request-2"), is(true));
+        assertThat(survey.getVersion(), is(rotated.getVersion()));
+        final PersistentSurvey copy = PersistentSurvey.of(survey);
+        assertThat(copy.hasCompiledDispatch(), is(true));
+        assertThat(copy.isProcessed("request-3"), is(true));
+        assertThat(copy.answerAsync(contextOf("loop").idempotencyKey("request-3"), null, Runnable::run).join(), is(sameInstance(copy)));
+        assertThat(copy.answerAsync("loop", null, Runnable::run).join().get(), is(equalTo(q1)));
+    }
+
+    @Test
+    @DisplayName("Persistent blocked transitions keep partial reverts")
+    void blockedTransitionShouldKeepPartialReverts() {
+        final Question flow = Question.of(START);
+        final Question q1 = flow.targetGet(Question.of(Q1));
+        final Question q2 = q1.targetGet(Question.of(Q2));
+        q2.target(Question.of(END));
+        final AtomicBoolean revertQ2 = new AtomicBoolean(false);
+        q2.onBack(answer -> revertQ2.get());
+        q1.onBack(answer -> false);
+        final PersistentSurvey answered = PersistentSurvey.init(flow).answer("a0").answer("a1").answer("a2");
+
+        assertThat(answered.transitTo(START), is(sameInstance(answered)));
+
+        revertQ2.set(true);
+        final PersistentSurvey blocked = answered.transitTo(START);
+        assertThat(blocked, is(not(sameInstance(answered))));
+        assertThat(blocked.get(), is(equalTo(q2)));
+        assertThat(blocked.getVersion(), is(answered.getVersion() + 1));
+        final Survey survey = answered.toSurvey();
+        assertThat(survey.transitTo(START), is(false));
+        assertThat(survey.get(), is(equalTo(blocked.get())));
+        assertThat(survey.getVersion(), is(blocked.getVersion()));
+        assertThat(survey.getDraftCount(), is(blocked.getDraftCount()));
+
+        final PersistentSurvey.Transition transition = answered.tryTransitTo(START);
+        assertThat(transition.allowed(), is(false));
+        assertThat(transition.survey().get(), is(equalTo(q2)));
+        assertThat(answered.tryTransitTo(Q2).allowed(), is(true));
+        assertThat(answered.tryTransitTo(Question.of(Q2), null).survey().get(), is(equalTo(q2)));
+    }
+}
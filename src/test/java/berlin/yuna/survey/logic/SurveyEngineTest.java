@@ -0,0 +1,121 @@
+package berlin.yuna.survey.logic;
+
+import berlin.yuna.survey.model.types.FlowItem;
+import berlin.yuna.survey.model.types.Question;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static berlin.yuna.survey.logic.SurveyTest.END;
+import static berlin.yuna.survey.logic.SurveyTest.Q1;
+import static berlin.yuna.survey.logic.SurveyTest.START;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@Tag("UnitTest")
+class SurveyEngineTest {
+
+    @Test
+    @DisplayName("Survey engine")
+    void surveyEngineShouldProcessSessionsInOrder() throws InterruptedException {
+        final Question flow = Question.of("C0");
+        Question last = flow;
+        for (int i = 1; i <= 10; i++) {
+            final String expected = String.valueOf(i - 1);
+            last = last.targetGet(Question.of("C" + i), answer -> answer.equals(expected));
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        final SurveyEngine engine = new SurveyEngine(executor);
+        final List<CompletableFuture<FlowItem<?, ?>>> results = new ArrayList<>();
+        for (int session = 0; session < 200; session++) {
+            assertThat(engine.start("session-" + session, flow), is(true));
+        }
+        assertThat(engine.start("session-0", flow), is(false));
+        for (int i = 0; i < 10; i++) {
+            for (int session = 0; session < 200; session++) {
+                results.add(engine.answer("session-" + session, String.valueOf(i)));
+            }
+        }
+        CompletableFuture.allOf(results.toArray(CompletableFuture[]::new)).join();
+        for (int session = 0; session < 200; session++) {
+            assertThat(results.get(9 * 200 + session).join(), is(equalTo(last)));
+        }
+        assertThat(engine.ask("unknown", Survey::get).isCompletedExceptionally(), is(true));
+        assertThat(engine.stop("session-0").join().map(Survey::get).orElse(null), is(equalTo(last)));
+        assertThat(engine.size(), is(199));
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS), is(true));
+    }
+
+    @Test
+    @DisplayName("Survey engine survives errors")
+    void surveyEngineShouldCompleteOnErrors() throws InterruptedException {
+        final Question flow = Question.of(START);
+        flow.target(Question.of(Q1), answer -> {
+            if (answer.equals("error")) {
+                throw new AssertionError("condition failed");
+            }
+            return answer.equals("1");
+        });
+        flow.target(Question.of(END));
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final SurveyEngine engine = new SurveyEngine(executor);
+            assertThrows(IllegalArgumentException.class, () -> new SurveyEngine(null));
+            assertThat(engine.start("session", flow), is(true));
+
+            final CompletionException error = assertThrows(CompletionException.class, () -> engine.answer("session", "error").join());
+            assertThat(error.getCause(), is(instanceOf(AssertionError.class)));
+            assertThat(engine.answer("session", "1").join(), is(equalTo(Question.of(Q1))));
+        } finally {
+            executor.shutdown();
+            assertThat(executor.awaitTermination(10, TimeUnit.SECONDS), is(true));
+        }
+    }
+
+    @Test
+    @DisplayName("Survey engine rejects requests after stop")
+    void surveyEngineShouldFailRequestsAfterStop() throws InterruptedException {
+        final Question flow = Question.of(START);
+        flow.target(Question.of(END));
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        final CountDownLatch release = new CountDownLatch(1);
+        try {
+            final SurveyEngine engine = new SurveyEngine(executor);
+            engine.start("session", flow);
+            final CompletableFuture<Boolean> blocked = engine.ask("session", survey -> {
+                try {
+                    return release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    return false;
+                }
+            });
+            final CompletableFuture<Survey> stopped = engine.stop("session").thenApply(survey -> survey.orElseThrow());
+            final CompletableFuture<FlowItem<?, ?>> late = engine.answer("session", "x");
+            release.countDown();
+
+            assertThat(blocked.join(), is(true));
+            assertThat(stopped.join().get(), is(equalTo(flow)));
+            assertThat(stopped.join().getHistory().get(0).isAnswered(), is(false));
+            final CompletionException error = assertThrows(CompletionException.class, late::join);
+            assertThat(error.getCause(), is(instanceOf(IllegalStateException.class)));
+            assertThat(engine.contains("session"), is(false));
+            assertThat(engine.stop("session").join().isPresent(), is(false));
+        } finally {
+            executor.shutdown();
+            assertThat(executor.awaitTermination(10, TimeUnit.SECONDS), is(true));
+        }
+    }
+}
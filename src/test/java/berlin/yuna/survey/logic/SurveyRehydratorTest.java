@@ -0,0 +1,92 @@
+package berlin.yuna.survey.logic;
+
+import berlin.yuna.survey.model.HistoryItemJson;
+import berlin.yuna.survey.model.RehydrationReport;
+import berlin.yuna.survey.model.types.Question;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static berlin.yuna.survey.logic.SurveyTest.END;
+import static berlin.yuna.survey.logic.SurveyTest.Q1;
+import static berlin.yuna.survey.logic.SurveyTest.Q2;
+import static berlin.yuna.survey.logic.SurveyTest.START;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@Tag("UnitTest")
+class SurveyRehydratorTest {
+
+    @Test
+    @DisplayName("Bulk rehydration")
+    void bulkRehydrationShouldRestoreAllHistories() {
+        final Question flow = Question.of(START);
+        flow.targetGet(Question.of(Q1)).targetGet(Question.of(Q2)).targetGet(Question.of(END));
+        final List<HistoryItemJson> history = Survey.init(flow).answer("a0").answer("a1").getHistoryJson();
+        final Queue<Survey> surveys = new ConcurrentLinkedQueue<>();
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            final RehydrationReport report = SurveyRehydrator.of(flow).executor(pool).rehydrate(
+                    Stream.concat(Stream.generate(() -> history).limit(100), Stream.of(Collections.singletonList(null))),
+                    surveys::add
+            );
+            assertThat(report.succeeded(), is(100L));
+            assertThat(report.failed(), is(1L));
+            assertThat(report.throughput() > 0, is(true));
+            assertThat(surveys, hasSize(100));
+            assertThat(surveys.peek().get(), is(equalTo(Question.of(Q2))));
+            assertThat(surveys.peek().getHistory().get(1).getAnswer(), is(equalTo("a1")));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Rehydration reports errors and keeps the parallelism")
+    void rehydrationShouldReportErrorsAndKeepParallelism() {
+        final Question flow = Question.of(START);
+        flow.targetGet(Question.of(Q1)).targetGet(Question.of(END));
+        final List<HistoryItemJson> history = Survey.init(flow).answer("a0").getHistoryJson();
+        assertThrows(IllegalArgumentException.class, () -> SurveyRehydrator.of(flow).executor(null));
+
+        final AtomicBoolean broken = new AtomicBoolean(false);
+        final AtomicInteger inFlight = new AtomicInteger(0);
+        final AtomicInteger maxInFlight = new AtomicInteger(0);
+        final Queue<Throwable> errors = new ConcurrentLinkedQueue<>();
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            final RehydrationReport report = SurveyRehydrator.of(flow).parallelism(1).executor(pool).onError((h, e) -> errors.add(e)).rehydrate(
+                    Stream.generate(() -> history).limit(20),
+                    survey -> {
+                        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                        try {
+                            if (broken.compareAndSet(false, true)) {
+                                throw new AssertionError("broken consumer");
+                            }
+                        } finally {
+                            inFlight.decrementAndGet();
+                        }
+                    }
+            );
+            assertThat(report.succeeded(), is(19L));
+            assertThat(report.failed(), is(1L));
+            assertThat(errors.peek(), is(instanceOf(AssertionError.class)));
+            assertThat(maxInFlight.get(), is(1));
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
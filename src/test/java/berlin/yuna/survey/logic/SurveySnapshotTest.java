@@ -0,0 +1,111 @@
+package berlin.yuna.survey.logic;
+
+import berlin.yuna.survey.config.SurveyDefaults;
+import berlin.yuna.survey.model.HistoryItem;
+import berlin.yuna.survey.model.exception.QuestionNotFoundException;
+import berlin.yuna.survey.model.types.Question;
+import berlin.yuna.survey.model.types.QuestionInt;
+import berlin.yuna.survey.model.types.QuestionList;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static berlin.yuna.survey.logic.SurveyTest.END;
+import static berlin.yuna.survey.logic.SurveyTest.Q1;
+import static berlin.yuna.survey.logic.SurveyTest.Q2;
+import static berlin.yuna.survey.logic.SurveyTest.Q3;
+import static berlin.yuna.survey.logic.SurveyTest.Q4;
+import static berlin.yuna.survey.logic.SurveyTest.START;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@Tag("UnitTest")
+class SurveySnapshotTest {
+
+    @Test
+    @DisplayName("Snapshot and restore")
+    void snapshotShouldRestoreSurvey() {
+        final Question flow = Question.of(START);
+        flow.targetGet(QuestionInt.of(Q1)).targetGet(QuestionList.of(Q2)).targetGet(Question.of(Q3)).targetGet(Question.of(END));
+        final Survey survey = Survey.init(flow).autoBackTransition(false).answer("a0").answer(42).answer(List.of("x", "y"));
+        survey.transitTo(Q2);
+
+        final Survey restored = Survey.restore(survey.snapshot(), flow);
+        assertThat(restored.get(), is(equalTo(survey.get())));
+        assertThat(restored.getFirst(), is(equalTo(survey.getFirst())));
+        assertThat(restored.hasAutoBackTransition(), is(false));
+        assertThat(restored.getHistory(), is(equalTo(survey.getHistory())));
+        for (int i = 0; i < survey.getHistorySize(); i++) {
+            assertThat(restored.getHistory().get(i).getState(), is(survey.getHistory().get(i).getState()));
+            assertThat(restored.getHistory().get(i).getAnswer(), is(equalTo(survey.getHistory().get(i).getAnswer())));
+            assertThat(restored.getHistory().get(i).getCreatedAt(), is(equalTo(survey.getHistory().get(i).getCreatedAt())));
+        }
+        assertThat(restored.getDraftCount(), is(survey.getDraftCount()));
+        restored.answer(List.of("z")).answer("a3");
+        assertThat(restored.get(), is(equalTo(Question.of(END))));
+
+        assertThrows(IllegalArgumentException.class, () -> Survey.restore(new byte[]{1, 2, 3}, flow));
+        assertThrows(QuestionNotFoundException.class, () -> Survey.restore(survey.snapshot(), Question.of(Q4)));
+
+        final byte[] oversized = survey.snapshot();
+        final int labels = 1 + 2 + START.length() + 1 + 8 + 8;
+        oversized[labels] = Byte.MAX_VALUE;
+        assertThrows(IllegalArgumentException.class, () -> Survey.restore(oversized, flow));
+
+        final Survey typed = Survey.init(flow, List.of(new HistoryItem(START, new BigDecimal("1.50"), null, HistoryItem.State.ANSWERED)));
+        assertThat(Survey.restore(typed.snapshot(), flow).getHistoryView().get(0).getAnswer(), is(equalTo(new BigDecimal("1.50"))));
+        final Survey plain = Survey.init(flow, List.of(new HistoryItem(START, new Answer("yuna"), null, HistoryItem.State.ANSWERED)));
+        assertThat(Survey.restore(plain.snapshot(), flow).getHistoryView().get(0).getAnswer(), is(equalTo(Map.of("name", "yuna"))));
+        SurveyDefaults.snapshotType(Answer.class);
+        assertThat(Survey.restore(plain.snapshot(), flow).getHistoryView().get(0).getAnswer(), is(equalTo(new Answer("yuna"))));
+
+        final byte[] forged = typed.snapshot();
+        final byte[] type = BigDecimal.class.getName().getBytes(StandardCharsets.UTF_8);
+        final int typeAt = indexOf(forged, type);
+        System.arraycopy("java.lang.Thread".getBytes(StandardCharsets.UTF_8), 0, forged, typeAt, 16);
+        forged[typeAt - 1] = 16;
+        final byte[] shortened = new byte[forged.length - (type.length - 16)];
+        System.arraycopy(forged, 0, shortened, 0, typeAt + 16);
+        System.arraycopy(forged, typeAt + type.length, shortened, typeAt + 16, forged.length - typeAt - type.length);
+        final IllegalArgumentException rejected = assertThrows(IllegalArgumentException.class, () -> Survey.restore(shortened, flow));
+        assertThat(rejected.getCause().getMessage(), is(equalTo("Unsupported answer type [java.lang.Thread]")));
+
+        final byte[] changed = survey.snapshot();
+        flow.compile().get(Question.of(Q3)).orElseThrow().target(Question.of(Q4));
+        assertThrows(IllegalArgumentException.class, () -> Survey.restore(changed, flow));
+    }
+
+    @Test
+    @DisplayName("Snapshot fingerprint is cached per compiled flow")
+    void fingerprintShouldBeCachedPerCompiledFlow() {
+        final Question flow = Question.of(START);
+        flow.targetGet(Question.of(Q1)).targetGet(Question.of(END));
+        final long fingerprint = flow.compile().fingerprint();
+        assertThat(flow.compile(), is(sameInstance(flow.compile())));
+        assertThat(flow.compile().get(Q1).orElseThrow().compile().fingerprint(), is(fingerprint));
+        flow.compile().get(Question.of(Q1)).orElseThrow().target(Question.of(Q2));
+        assertThat(flow.compile().fingerprint(), is(not(fingerprint)));
+    }
+
+    private static int indexOf(final byte[] source, final byte[] target) {
+        for (int i = 0; i <= source.length - target.length; i++) {
+            if (Arrays.equals(source, i, i + target.length, target, 0, target.length)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    record Answer(String name) {
+    }
+}
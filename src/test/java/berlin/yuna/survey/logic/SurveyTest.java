@@ -1,18 +1,28 @@
 package berlin.yuna.survey.logic;
 
+import berlin.yuna.survey.model.ContextExchange;
 import berlin.yuna.survey.model.HistoryItem;
 import berlin.yuna.survey.model.exception.QuestionNotFoundException;
 import berlin.yuna.survey.model.types.FlowItem;
 import berlin.yuna.survey.model.types.Question;
+import berlin.yuna.survey.model.types.QuestionBool;
+import berlin.yuna.survey.model.types.QuestionInt;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import static berlin.yuna.survey.model.ContextExchange.contextOf;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
@@ -20,6 +30,7 @@ import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @Tag("UnitTest")
@@ -136,6 +147,266 @@ class SurveyTest {
         assertThat(survey.getHistory(), hasSize(4));
     }
 
+    @Test
+    @DisplayName("History view")
+    void historyViewShouldReflectAnswersWithoutCopy() {
+        final Question flow = Question.of(START);
+        flow.targetGet(Question.of(Q1)).targetGet(Question.of(Q2)).targetGet(Question.of(END));
+        final Survey survey = Survey.init(flow);
+        final List<HistoryItem> view = survey.getHistoryView();
+        final List<HistoryItem> copy = survey.getHistory();
+        survey.answer("Q1").answer("Q2");
+
+        assertThat(view, hasSize(3));
+        assertThat(copy, hasSize(1));
+        assertThat(view.get(2).getLabel(), is(equalTo(Q2)));
+        assertThat(view.stream().filter(HistoryItem::isAnswered).count(), is(2L));
+        assertThrows(UnsupportedOperationException.class, () -> view.add(new HistoryItem(Q3)));
+
+        survey.transitTo(START);
+        assertThat(view, hasSize(2));
+        assertThat(view.get(0).isCurrent(), is(true));
+    }
+
+    @Test
+    @DisplayName("Session status")
+    void sessionStatusShouldFollowStateChanges() {
+        final Question flow = Question.of(START);
+        flow.targetGet(Question.of(Q1)).targetGet(Question.of(Q2));
+        final Survey survey = Survey.init(flow);
+        assertThat(survey.getAnsweredCount(), is(0));
+        assertThat(survey.getPrevious(), is(nullValue()));
+
+        survey.answer("a0").answer("a1");
+        assertThat(survey.getAnsweredCount(), is(2));
+        assertThat(survey.getPrevious(), is(equalTo(Question.of(Q1))));
+
+        survey.transitTo(START);
+        assertThat(survey.getDraftCount(), is(1));
+        assertThat(survey.getAnsweredCount(), is(2));
+
+        survey.answer("a0").answer("a1").answer("a2");
+        assertThat(survey.getDraftCount(), is(0));
+        assertThat(survey.getAnsweredCount(), is(3));
+        assertThat(survey.isEnded(), is(true));
+        final List<HistoryItem> history = survey.getHistory();
+        final Survey copy = Survey.init(flow, history);
+        assertThat(copy.getAnsweredCount(), is(3));
+
+        copy.transitTo(START);
+        history.get(0).setState(HistoryItem.State.DRAFT);
+        survey.getHistoryView().get(1).setState(HistoryItem.State.DRAFT);
+        assertThat(copy.getDraftCount(), is(2));
+        assertThat(survey.getDraftCount(), is(0));
+        assertThat(survey.getHistoryView().get(1).isDraft(), is(false));
+    }
+
+    @Test
+    @DisplayName("Back transitions only revert crossed items")
+    void backTransitionShouldOnlyRevertCrossedItems() {
+        final AtomicInteger reverts = new AtomicInteger(0);
+        final Question flow = Question.of(START);
+        flow.target(Question.of(Q1).onBack(answer -> reverts.incrementAndGet() > 0).target(Question.of(END)), answer -> answer.equals("1"));
+        flow.target(Question.of(Q2).target(Question.of(END)));
+
+        final Survey survey = Survey.init(flow).answer("1").answer("x");
+        assertThat(survey.transitTo(START), is(true));
+        assertThat(reverts.get(), is(1));
+
+        survey.answer("2").answer("x");
+        assertThat(survey.get(), is(equalTo(Question.of(END))));
+        assertThat(survey.transitTo(START), is(true));
+        assertThat(reverts.get(), is(1));
+        assertThat(survey.get(), is(equalTo(Question.of(START))));
+        assertThat(survey.getDraftCount(), is(2));
+    }
+
+    @Test
+    @DisplayName("Re-answered items keep one checkpoint")
+    void reAnswerShouldNotGrowCheckpoints() {
+        final Question q1 = Question.of(Q1);
+        final Question q2 = Question.of(Q2);
+        q1.target(q2);
+        q2.target(q1, answer -> answer.equals("loop"));
+        q2.target(Question.of(END));
+
+        final Survey survey = Survey.init(q1);
+        for (int i = 0; i < 100; i++) {
+            survey.answer("a").answer("loop");
+        }
+        final History history = (History) survey.history();
+        assertThat(survey.get(), is(equalTo(q1)));
+        assertThat(history.checkpoints(), is(1));
+        assertThat(history.checkpoint().getLabel(), is(equalTo(Q2)));
+        assertThat(survey.answer("a").answer("done").get(), is(equalTo(Question.of(END))));
+        assertThat(history.checkpoints(), is(2));
+        assertThat(history.checkpoint().getLabel(), is(equalTo(Q2)));
+    }
+
+    @Test
+    @DisplayName("Answer all")
+    void answerAllShouldApplyAnswersInOnePass() {
+        final Question flow = Question.of(START);
+        flow.targetGet(QuestionBool.of(Q1)).targetGet(Question.of(Q2)).targetGet(Question.of(END));
+        final Survey survey = Survey.init(flow);
+        assertThat(survey.answerAll(List.of("a0", true, "a2")), is(3));
+        assertThat(survey.get(), is(equalTo(Question.of(END))));
+        assertThat(survey.getAnsweredCount(), is(3));
+        assertThat(survey.getHistoryView().get(3).isCurrent(), is(true));
+
+        final Survey partial = Survey.init(flow);
+        assertThat(partial.answerAll(List.of("a0", "invalid", "a2")), is(1));
+        assertThat(partial.get(), is(equalTo(QuestionBool.of(Q1))));
+        assertThat(partial.getAnsweredCount(), is(1));
+        assertThat(partial.getHistoryView().get(1).isCurrent(), is(true));
+
+        final Survey byLabel = Survey.init(flow);
+        assertThat(byLabel.answerAll(Map.of(START, "a0", Q1, "true", Q2, "a2", END, "a3")), is(4));
+        assertThat(byLabel.isEnded(), is(true));
+
+        final Survey stayed = Survey.init(flow);
+        assertThat(stayed.answerAll(List.of("a0", true, "a2", "a3", "a4")), is(4));
+        assertThat(stayed.isEnded(), is(true));
+        assertThat(stayed.getHistoryView().get(3).getAnswer(), is(equalTo("a3")));
+    }
+
+    @Test
+    @DisplayName("Lookahead")
+    void lookaheadShouldReturnReachableItems() {
+        final Question flow = Question.of(START);
+        flow.target(Question.of(Q1).target(Question.of(END)), answer -> answer.equals("1"));
+        flow.target(Question.of(Q2).target(Question.of(Q3)));
+
+        final Survey survey = Survey.init(flow);
+        assertThat(survey.lookahead(0), is(empty()));
+        assertThat(survey.lookahead(1), containsInAnyOrder(Question.of(Q1), Question.of(Q2)));
+        assertThat(survey.lookahead(5), containsInAnyOrder(Question.of(Q1), Question.of(Q2), Question.of(END), Question.of(Q3)));
+
+        survey.answer("2").answer("x");
+        survey.transitTo(START);
+        assertThat(survey.lookahead(5), containsInAnyOrder(Question.of(Q1), Question.of(Q2), Question.of(END), Question.of(Q3)));
+        assertThat(survey.get(), is(equalTo(flow)));
+
+        final AtomicInteger calls = new AtomicInteger(0);
+        final Question branch = Question.of(Q4);
+        branch.target(Question.of(Q2), answer -> calls.incrementAndGet() > 0 && answer.equals("a"));
+        branch.target(Question.of(Q3));
+        final Question linear = Question.of(START);
+        linear.target(branch);
+        final Survey resumed = Survey.restore(linear, linear, List.of(
+                new HistoryItem(START, "s", null, HistoryItem.State.CURRENT),
+                new HistoryItem(Q4, "a", null, HistoryItem.State.ANSWERED),
+                new HistoryItem(Q2, "b", null, HistoryItem.State.ANSWERED)
+        ), 0);
+        assertThat(resumed.get(), is(equalTo(linear)));
+        assertThat(resumed.lookahead(5), contains(Question.of(Q4), Question.of(Q2)));
+        assertThat(calls.get(), is(0));
+    }
+
+    @Test
+    @DisplayName("Idempotent answers")
+    void answerShouldIgnoreRetriedRequests() {
+        final AtomicInteger parsed = new AtomicInteger(0);
+        final Question flow = Question.of(START);
+        flow.targetGet(Question.of(Q1), answer -> parsed.incrementAndGet() > 0).targetGet(Question.of(Q2)).targetGet(Question.of(END));
+
+        final Survey survey = Survey.init(flow);
+        survey.answer(ContextExchange.contextOf("a0").idempotencyKey("request-1"));
+        survey.answer(ContextExchange.contextOf("a0").idempotencyKey("request-1"));
+        assertThat(survey.get(), is(equalTo(Question.of(Q1))));
+        assertThat(parsed.get(), is(1));
+        assertThat(survey.isProcessed("request-1"), is(true));
+
+        survey.answer(ContextExchange.contextOf("a1").idempotencyKey("request-2"));
+        assertThat(survey.answerAll(List.of(ContextExchange.contextOf("a1").idempotencyKey("request-2"), "a2")), is(0));
+        assertThat(survey.get(), is(equalTo(Question.of(Q2))));
+
+        survey.idempotencyKeys(1).answer(ContextExchange.contextOf("a2").idempotencyKey("request-3"));
+        survey.answer(ContextExchange.contextOf("a3").idempotencyKey("request-4"));
+        assertThat(survey.isProcessed("request-3"), is(false));
+        assertThat(survey.isProcessed("request-4"), is(true));
+        assertThat(survey.get(), is(equalTo(Question.of(END))));
+
+        final Question failing = Question.of(START);
+        failing.targetGet(QuestionInt.of(Q1)).target(Question.of(END), answer -> {
+            throw new IllegalStateException("unavailable");
+        });
+        final Survey retried = Survey.init(failing).answer("a0");
+        retried.answer(ContextExchange.contextOf("invalid").idempotencyKey("request-5"));
+        assertThat(retried.isProcessed("request-5"), is(false));
+        assertThat(retried.get(), is(equalTo(QuestionInt.of(Q1))));
+        assertThat(retried.getHistory().get(1).getAnswer(), is(equalTo("invalid")));
+        assertThat(retried.getVersion(), is(2L));
+        assertThrows(IllegalStateException.class, () -> retried.answer(ContextExchange.contextOf(1).idempotencyKey("request-5")));
+        assertThat(retried.isProcessed("request-5"), is(false));
+        assertThat(retried.answerAll(List.of(ContextExchange.contextOf("invalid").idempotencyKey("request-6"))), is(0));
+        assertThat(retried.isProcessed("request-6"), is(false));
+        assertThat(retried.answerAsync(ContextExchange.contextOf("invalid").idempotencyKey("request-7")).join(), is(sameInstance(retried)));
+        assertThat(retried.isProcessed("request-7"), is(false));
+    }
+
+    @Test
+    @DisplayName("Answers dispatch through parseAndAnswer")
+    void answerShouldUseOverriddenParseAndAnswer() {
+        final AtomicInteger dispatched = new AtomicInteger(0);
+        final Question flow = new Question(START) {
+            @Override
+            public Optional<FlowItem<?, ?>> parseAndAnswer(final ContextExchange context) {
+                dispatched.incrementAndGet();
+                return super.parseAndAnswer(context);
+            }
+        };
+        flow.target(Question.of(END));
+        final Survey survey = Survey.init(flow).answer(ContextExchange.contextOf("a0").idempotencyKey("request-1"));
+        assertThat(dispatched.get(), is(1));
+        assertThat(survey.get(), is(equalTo(Question.of(END))));
+        assertThat(survey.isProcessed("request-1"), is(true));
+    }
+
+    @Test
+    @DisplayName("Optimistic versioning")
+    void answerIfVersionShouldRejectStaleWrites() {
+        final Question flow = Question.of(START);
+        flow.targetGet(Question.of(Q1)).targetGet(Question.of(Q2)).targetGet(Question.of(END));
+        final Survey survey = Survey.init(flow);
+        assertThat(survey.getVersion(), is(0L));
+
+        final long version = survey.getVersion();
+        assertThat(survey.answerIfVersion(version, "a0"), is(true));
+        assertThat(survey.answerIfVersion(version, "a0"), is(false));
+        assertThat(survey.get(), is(equalTo(Question.of(Q1))));
+        assertThat(survey.getVersion(), is(1L));
+        assertThat(survey.answerIfVersion(1L, contextOf("a1").idempotencyKey("request-1")), is(true));
+        assertThat(survey.transitTo(Q1), is(true));
+        assertThat(survey.getVersion(), is(3L));
+        assertThat(survey.answerIfVersion(3L, contextOf("a1").idempotencyKey("request-1")), is(false));
+        assertThat(survey.getVersion(), is(3L));
+        survey.answerAll(List.of("a1", "a2"));
+        assertThat(survey.getVersion(), is(4L));
+        survey.transitTo(START);
+        assertThat(survey.getVersion(), is(5L));
+
+        final byte[] snapshot = survey.snapshot();
+        assertThat(Survey.restore(snapshot, flow).getVersion(), is(5L));
+        final byte[] legacy = survey.snapshot();
+        legacy[0] = 2;
+        assertThrows(IllegalArgumentException.class, () -> Survey.restore(legacy, flow));
+
+        final PersistentSurvey persistent = PersistentSurvey.of(survey);
+        assertThat(persistent.getVersion(), is(5L));
+        assertThat(persistent.transitTo(START), is(sameInstance(persistent)));
+        assertThat(persistent.answer("a0").getVersion(), is(6L));
+        assertThat(persistent.answerIfVersion(2L, "a0"), is(sameInstance(persistent)));
+        assertThat(persistent.answer("a0").toSurvey().getVersion(), is(6L));
+
+        final ConcurrentSurvey concurrent = ConcurrentSurvey.of(survey);
+        assertThat(concurrent.answerIfVersion(5L, "a0"), is(true));
+        assertThat(concurrent.answerIfVersion(5L, "a1"), is(false));
+        assertThat(concurrent.answerIfVersion(6L, contextOf("a1").idempotencyKey("request-1")), is(false));
+        assertThat(concurrent.getVersion(), is(6L));
+        assertThat(concurrent.toSurvey().getVersion(), is(6L));
+    }
+
     @Test
     @DisplayName("Simple forward flow with answer")
     void flowForwardShouldMoveToTargetOnAnswer() {
@@ -192,6 +463,25 @@ class SurveyTest {
         assertThat(survey.getHistory().stream().filter(HistoryItem::isNotDraft).toArray().length, is(3));
     }
 
+    @Test
+    @DisplayName("Transition forward continues from current item")
+    void transitionForwardContinuesFromCurrent() {
+        final AtomicInteger startEvaluations = new AtomicInteger(0);
+        final Question flow = Question.of(START);
+        flow.targetGet(Question.of(Q1), answer -> startEvaluations.incrementAndGet() > 0)
+                .targetGet(Question.of(Q2))
+                .targetGet(Question.of(Q3))
+                .targetGet(Question.of(END));
+        final Survey survey = Survey.init(flow).answer("a0").answer("a1").answer("a2").answer("a3");
+        assertThat(startEvaluations.get(), is(1));
+
+        survey.transitTo(Q1);
+        survey.transitTo(END);
+        assertThat(survey.get(), is(equalTo(Question.of(END))));
+        assertThat(startEvaluations.get(), is(1));
+        assertThat(survey.getHistory().stream().filter(item -> item.getLabel().equals(Q1)).findFirst().orElseThrow().getAnswer(), is(equalTo("a1")));
+    }
+
     @Test
     @DisplayName("Transition back without automatic")
     void transitionBackAndForwardWithoutAutomatic() {
@@ -233,6 +523,28 @@ class SurveyTest {
         assertThat(survey.get(), is(equalTo(Question.of(Q2))));
     }
 
+    @Test
+    @DisplayName("Blocked transitions only change the version on reverts")
+    void blockedTransitionShouldKeepVersion() {
+        final Survey survey = createSimpleSurvey().answer(START).answer(Q1).answer(Q2);
+        survey.get(Question.of(Q2)).onBack(s -> false);
+        final long version = survey.getVersion();
+
+        assertThat(survey.transitTo(START), is(false));
+        assertThat(survey.get(), is(equalTo(Question.of(Q3))));
+        assertThat(survey.getVersion(), is(version));
+        assertThat(survey.getDraftCount(), is(0));
+
+        survey.get(Question.of(Q2)).onBack(s -> true);
+        survey.get(Question.of(Q1)).onBack(s -> false);
+        assertThat(survey.transitTo(START), is(false));
+        assertThat(survey.get(), is(equalTo(Question.of(Q2))));
+        assertThat(survey.getVersion(), is(version + 1));
+        assertThat(survey.getDraftCount(), is(0));
+        assertThat(survey.transitTo(Q2), is(true));
+        assertThat(survey.getVersion(), is(version + 1));
+    }
+
     @Test
     @DisplayName("Get previous")
     void getPrevious() {
@@ -0,0 +1,69 @@
+package berlin.yuna.survey.model;
+
+import berlin.yuna.survey.logic.Survey;
+import berlin.yuna.survey.model.types.Question;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+@Tag("UnitTest")
+class AsyncConditionTest {
+
+    private static final String START = "START";
+    private static final String Q1 = "Q1";
+    private static final String END = "END";
+    private static final Duration TIMEOUT = Duration.ofMillis(50);
+
+    @Test
+    @DisplayName("Async conditions")
+    void answerAsyncShouldNotBlockOnSlowConditions() {
+        final Question slow = Question.of(START);
+        slow.target(Question.of(Q1), AsyncCondition.<String>of("slow", TIMEOUT, false, answer -> new CompletableFuture<>()));
+        slow.target(Question.of(END));
+        final CompletableFuture<Survey> pending = Survey.init(slow).answerAsync("x");
+        assertThat(pending.isDone(), is(false));
+        assertThat(pending.join().get(), is(equalTo(Question.of(END))));
+        assertThat(pending.join().getVersion(), is(1L));
+
+        final Question fallback = Question.of(START);
+        fallback.target(Question.of(Q1), AsyncCondition.<String>of("slow", TIMEOUT, true, answer -> new CompletableFuture<>()));
+        fallback.target(Question.of(END));
+        assertThat(Survey.init(fallback).answer("x").get(), is(equalTo(Question.of(Q1))));
+    }
+
+    @Test
+    @DisplayName("Async conditions continue on the given executor")
+    void answerAsyncShouldContinueOnExecutor() {
+        final ExecutorService callbacks = Executors.newSingleThreadExecutor();
+        final AtomicInteger scheduled = new AtomicInteger(0);
+        try {
+            final Question timed = Question.of(START);
+            timed.target(Question.of(Q1), AsyncCondition.<String>of("slow", TIMEOUT, false, answer -> new CompletableFuture<>()));
+            timed.target(Question.of(END));
+            final Executor executor = task -> {
+                scheduled.incrementAndGet();
+                callbacks.execute(task);
+            };
+            assertThat(Survey.init(timed).answerAsync("x", null, executor).join().get(), is(equalTo(Question.of(END))));
+            assertThat(scheduled.get(), is(2));
+
+            final Question remote = Question.of(START);
+            remote.target(Question.of(Q1), AsyncCondition.<String>of("remote", Duration.ofSeconds(5), false, answer -> CompletableFuture.supplyAsync(() -> true, callbacks)));
+            remote.target(Question.of(END));
+            assertThat(Survey.init(remote).answerAsync("x", null, executor).join().get(), is(equalTo(Question.of(Q1))));
+        } finally {
+            callbacks.shutdown();
+        }
+    }
+}
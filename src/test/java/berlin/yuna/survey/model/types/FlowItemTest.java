@@ -3,7 +3,11 @@ package berlin.yuna.survey.model.types;
 
 import berlin.yuna.survey.helper.CustomCondition;
 import berlin.yuna.survey.helper.CustomConditionInvalid;
+import berlin.yuna.survey.logic.Survey;
+import berlin.yuna.survey.model.EqualsCondition;
 import berlin.yuna.survey.model.HistoryItem;
+import berlin.yuna.survey.model.InCondition;
+import berlin.yuna.survey.model.RangeCondition;
 import berlin.yuna.survey.model.Route;
 import berlin.yuna.survey.model.exception.FlowRuntimeException;
 import berlin.yuna.survey.model.exception.QuestionNotFoundException;
@@ -25,6 +29,8 @@ import static org.hamcrest.Matchers.hasItems;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @Tag("UnitTest")
@@ -213,6 +219,157 @@ class FlowItemTest {
         assertThrows(QuestionTypeException.class, () -> flow.get(QuestionBool.of(Q2)));
     }
 
+    @Test
+    @DisplayName("Compile flow")
+    void compile() {
+        final Question q2 = Question.of(Q2);
+        final Question flow = Question.of(Q1).target(q2.target(Question.of(Q3)));
+        final CompiledFlow compiled = flow.compile();
+
+        assertThat(compiled.size(), is(3));
+        assertThat(compiled.first(), is(flow));
+        assertThat(compiled.isValid(), is(true));
+        assertThat(flow.compile(), is(sameInstance(compiled)));
+        assertThat(q2.compile().size(), is(3));
+        assertThat(compiled.get(Q2).orElse(null), is(sameInstance(q2)));
+        assertThat(compiled.get(Q5), is(Optional.empty()));
+        assertThat(compiled.contains(Q3), is(true));
+        assertThat(compiled.targetCount(compiled.id(Q1)), is(1));
+        assertThat(compiled.node(compiled.target(compiled.id(Q1), 0)), is(q2));
+        assertThat(compiled.node(compiled.parent(compiled.id(Q2), 0)), is(flow));
+        assertThrows(QuestionTypeException.class, () -> compiled.get(QuestionBool.of(Q2)));
+
+        //MODIFICATION INVALIDATES SNAPSHOT
+        q2.target(Question.of(Q4), a -> a.equals("4"));
+        assertThat(compiled.isValid(), is(false));
+        assertThat(flow.compile(), is(not(sameInstance(compiled))));
+        assertThat(flow.compile().size(), is(4));
+        assertThat(flow.get(Q4).isPresent(), is(true));
+    }
+
+    @Test
+    @DisplayName("Stable ids")
+    void stableIds() {
+        final Question q2 = Question.of(Q2);
+        final Question flow = Question.of(Q1).target(q2.target(Question.of(Q3)));
+        final int id = q2.id();
+        assertThat(flow.compile().id(Q2), is(id));
+        assertThat(q2.compile().id(Q2), is(id));
+        assertThat(flow.compile().label(id), is(equalTo(Q2)));
+        assertThat(Question.of(Q2).id(), is(0));
+
+        //OVERWRITTEN ROUTES KEEP THEIR IDS
+        flow.target(Question.of(Q4));
+        final CompiledFlow compiled = flow.compile();
+        assertThat(q2.id(), is(id));
+        assertThat(compiled.id(Q2), is(-1));
+        assertThat(compiled.size(), is(2));
+        assertThat(compiled.capacity(), is(4));
+        assertThat(compiled.label(compiled.id(Q4)), is(equalTo(Q4)));
+    }
+
+    @Test
+    @DisplayName("Build flow")
+    void buildFlow() {
+        final FlowItem<?, ?> flow = new FlowBuilder()
+                .add(QuestionBool.of(Q1), Question.of(Q2), Question.of(Q3), Question.of(Q4))
+                .add(Question.of(Q2).target(Question.of(Q5)))
+                .link(Q1, Q2, (Boolean answer) -> answer)
+                .link(Q1, Q3)
+                .link(Q1, Q4)
+                .link(Q3, Q4)
+                .build();
+
+        assertThat(flow, is(equalTo(QuestionBool.of(Q1))));
+        assertThat(flow.targets(), hasItems(Question.of(Q2), Question.of(Q4)));
+        assertThat(flow.targets(), not(hasItems(Question.of(Q3))));
+        assertThat(flow.get(Q2).orElseThrow().targets(), hasItems(Question.of(Q5)));
+        assertThat(flow.get(Q4).orElseThrow().parents(), hasItems(flow, Question.of(Q3)));
+        assertThat(((QuestionBool) flow).parseAndAnswer(contextOf("yes")), is(equalTo(Optional.of(Question.of(Q2)))));
+        assertThat(((QuestionBool) flow).parseAndAnswer(contextOf("no")), is(equalTo(Optional.of(Question.of(Q4)))));
+
+        assertThat(new FlowBuilder().add(Question.of(Q1), Question.of(Q2)).link(Q1, Q2).build(Q2), is(equalTo(Question.of(Q2))));
+        assertThrows(QuestionNotFoundException.class, () -> new FlowBuilder().build());
+        assertThrows(QuestionNotFoundException.class, () -> new FlowBuilder().add(Question.of(Q1)).link(Q1, Q2).build());
+        assertThrows(QuestionTypeException.class, () -> new FlowBuilder().add(Question.of(Q1), QuestionBool.of(Q1)).build());
+    }
+
+    @Test
+    @DisplayName("Cached routes")
+    void cachedRoutes() {
+        final Question flow = Question.of(Q1).target(Question.of(Q2)).target(Question.of(Q3), a -> a.equals("3"));
+        final Set<FlowItem<?, ?>> targets = flow.targets();
+        assertThat(flow.targets(), is(not(sameInstance(targets))));
+        targets.add(Question.of(Q4));
+        flow.transitions().forwardRoutes().clear();
+        assertThat(flow.targets(), is(not(hasItems(Question.of(Q4)))));
+        assertThat(flow.answer("3"), is(equalTo(Optional.of(Question.of(Q3)))));
+        assertThat(flow.answer("2"), is(equalTo(Optional.of(Question.of(Q2)))));
+
+        flow.target(Question.of(Q4));
+        assertThat(flow.targets(), hasItems(Question.of(Q3), Question.of(Q4)));
+        assertThat(flow.answer("2"), is(equalTo(Optional.of(Question.of(Q4)))));
+        assertThat(flow.revert("2"), is(Optional.empty()));
+    }
+
+    @Test
+    @DisplayName("Indexed routes")
+    void indexedRoutes() {
+        final Question country = Question.of(Q1)
+                .target(Question.of(Q2), EqualsCondition.of("DE"))
+                .target(Question.of(Q3), InCondition.of("AT", "CH"))
+                .target(Question.of(Q4), a -> a.startsWith("X"))
+                .target(Question.of(Q5));
+        assertThat(country.answer("DE"), is(equalTo(Optional.of(Question.of(Q2)))));
+        assertThat(country.answer("CH"), is(equalTo(Optional.of(Question.of(Q3)))));
+        assertThat(country.answer("XX"), is(equalTo(Optional.of(Question.of(Q4)))));
+        assertThat(country.answer("FR"), is(equalTo(Optional.of(Question.of(Q5)))));
+
+        final QuestionInt age = QuestionInt.of(Q1)
+                .target(Question.of(Q2), RangeCondition.of(0, 17))
+                .target(Question.of(Q3), RangeCondition.of(18, 64))
+                .target(Question.of(Q4), RangeCondition.of(65, 130));
+        assertThat(age.answer(0), is(equalTo(Optional.of(Question.of(Q2)))));
+        assertThat(age.answer(18), is(equalTo(Optional.of(Question.of(Q3)))));
+        assertThat(age.answer(64), is(equalTo(Optional.of(Question.of(Q3)))));
+        assertThat(age.answer(130), is(equalTo(Optional.of(Question.of(Q4)))));
+        assertThat(age.answer(131), is(Optional.empty()));
+
+        //OVERLAPPING RANGES ARE APPLIED ONE BY ONE
+        age.target(Question.of(Q5), RangeCondition.of(60, 70));
+        assertThat(age.answer(62), is(not(Optional.empty())));
+        assertThat(age.answer(69), is(not(Optional.empty())));
+        assertThat(age.answer(12), is(equalTo(Optional.of(Question.of(Q2)))));
+        assertThrows(IllegalArgumentException.class, () -> RangeCondition.of(2, 1));
+    }
+
+    @Test
+    @DisplayName("Compiled machine")
+    void compiledMachine() {
+        final Question flow = Question.of(Q1);
+        flow.target(Question.of(Q2), EqualsCondition.of("DE"))
+                .target(Question.of(Q3), answer -> answer.startsWith("X"))
+                .target(Question.of(Q4));
+        final CompiledFlow compiled = flow.compile();
+        final FlowMachine machine = compiled.machine();
+        assertThat(compiled.machine(), is(sameInstance(machine)));
+        for (String answer : new String[]{"DE", "XX", "FR", null}) {
+            assertThat(machine.next(compiled.id(Q1), answer), is(equalTo(flow.answer(answer).orElse(null))));
+        }
+        assertThat(machine.next(compiled.id(Q4), "DE"), is(nullValue()));
+
+        final Survey survey = Survey.init(flow).compiledDispatch(true).answer("XX");
+        assertThat(survey.get(), is(equalTo(Question.of(Q3))));
+
+        //MODIFIED FLOW FALLS BACK TO THE INTERPRETED PATH
+        flow.target(Question.of(Q5), EqualsCondition.of("AT"));
+        assertThat(machine.isValid(), is(false));
+        assertThat(machine.parseAndAnswer(flow, contextOf("AT")), is(equalTo(Optional.of(Question.of(Q5)))));
+        assertThat(machine.next(compiled.id(Q1), "AT"), is(equalTo(Question.of(Q5))));
+        assertThrows(IllegalArgumentException.class, () -> machine.next(-1, "AT"));
+        assertThat(flow.compile().machine().next(flow.id(), "AT"), is(equalTo(Question.of(Q5))));
+    }
+
     @Test
     @DisplayName("Equals [COV]")
     void equals() {